@@ -0,0 +1,67 @@
+package com.example.product.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.product.Service.JwtService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    // More distinct tokens than the verified-token cache holds, so most lookups miss
+    private static final int ROTATING_TOKENS = 16_384;
+
+    private JwtService jwtService;
+    private String token;
+    private String[] rotatingTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        token = jwtService.generateToken("user@example.com", 1L);
+
+        rotatingTokens = new String[ROTATING_TOKENS];
+        for (int i = 0; i < ROTATING_TOKENS; i++) {
+            rotatingTokens[i] = jwtService.generateToken("user" + i + "@example.com", (long) i);
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("user@example.com", 1L);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token);
+    }
+
+    @Benchmark
+    public Long getUserIdFromToken() {
+        return jwtService.getUserIdFromToken(token);
+    }
+
+    @Benchmark
+    public boolean validateRotatingTokens() {
+        next = (next + 1) % ROTATING_TOKENS;
+        return jwtService.validateToken(rotatingTokens[next]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.product.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.product.ProductApplication;
+import com.example.product.Model.PageResponse;
+import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Model.SerializedProduct;
+import com.example.product.Model.UserModel;
+import com.example.product.Repository.UserRepository;
+import com.example.product.Service.ProductService;
+
+// ProductService against an in-memory H2 database in MySQL mode
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private Long firstProductId;
+
+    @Setup
+    public void setUp() {
+        // Passed as arguments so they take precedence over application.properties
+        context = new SpringApplicationBuilder(ProductApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false");
+        productService = context.getBean(ProductService.class);
+
+        UserModel owner = context.getBean(UserRepository.class).save(UserModel.builder()
+                .firstName("Bench").lastName("Mark").email("bench@example.com").password("password123").build());
+
+        List<ProductModel> products = new ArrayList<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            products.add(ProductModel.builder().productName("Product " + i).description("Description of product " + i)
+                    .price(1.0 + i).image("image" + i + ".jpg").user(owner).build());
+            if (products.size() == ProductService.MAX_BATCH_SIZE) {
+                productService.saveProducts(products);
+                products = new ArrayList<>();
+            }
+        }
+        productService.saveProducts(products);
+
+        firstProductId = productService.getProductsPage(null, 1).get(0).id();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<SerializedProduct> getSerializedProduct() {
+        return productService.getSerializedProduct(firstProductId);
+    }
+
+    @Benchmark
+    public List<ProductSummary> getProductsPage() {
+        return productService.getProductsPage(firstProductId + CATALOG_SIZE / 2, PageResponse.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ProductSummary> searchProductsByName() {
+        return productService.searchProductsByName("product 42", 20);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.product.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Jackson serialization of the status/message/details envelopes returned by the controllers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    private int listingSize;
+
+    private ObjectMapper objectMapper;
+    private ProductModel product;
+    private List<ProductSummary> products;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        product = new ProductModel(1L, "Product 1", "Description of product 1", 100.0, "image1.jpg", null, 0L);
+
+        products = new ArrayList<>();
+        for (long i = 1; i <= listingSize; i++) {
+            products.add(new ProductSummary(i, "Product " + i, "Description of product " + i, 10.0 * i,
+                    "image" + i + ".jpg", 0L));
+        }
+    }
+
+    @Benchmark
+    public byte[] productEnvelope() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Product found.");
+        response.put("details", product);
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] listingEnvelope() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "All products are available.");
+        response.put("details", products);
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
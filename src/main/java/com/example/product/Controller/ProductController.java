@@ -1,13 +1,26 @@
 package com.example.product.Controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,55 +35,187 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.example.product.Filter.RateLimitFilter;
+import com.example.product.Model.ApiResponse;
+import com.example.product.Model.AuthenticatedUser;
+import com.example.product.Model.OwnedProductUpdate;
+import com.example.product.Model.OwnedWriteResult;
+import com.example.product.Model.PageResponse;
+import com.example.product.Model.ProductChangeModel;
+import com.example.product.Model.ProductCursor;
+import com.example.product.Model.ProductFilter;
 import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSort;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Model.SerializedProduct;
 import com.example.product.Model.UserModel;
+import com.example.product.Model.UserSnapshot;
 import com.example.product.Service.JwtService;
+import com.example.product.Service.ProductChangeFeed;
+import com.example.product.Service.ProductSearchIndex;
 import com.example.product.Service.ProductService;
+import com.example.product.Service.UserService;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductController {
 
+    // Envelope of GET /products/{id}, written around the cached product bytes
+    private static final byte[] PRODUCT_FOUND_PREFIX =
+            "{\"status\":\"success\",\"message\":\"Product found.\",\"details\":".getBytes(StandardCharsets.UTF_8);
+
     @Autowired
     private ProductService productService;
 
     @Autowired
     private JwtService jwtService;
 
-    @GetMapping(value = "/products")
-    public ResponseEntity<Map<String, Object>> getProducts() {
-        Map<String, Object> response = new HashMap<>();
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @Value("${app.product-changes.long-poll-timeout:25s}")
+    private Duration longPollTimeout = Duration.ofSeconds(25);
+
+    @Value("${app.product-changes.stream-timeout:30m}")
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    @GetMapping(value = "/products")
+    public ResponseEntity<?> getProducts(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "minPrice", required = false) Double minPrice,
+            @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "owner", required = false) Long owner,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
+
+        MediaType mediaType = ProductMediaTypes.negotiate(accept);
         try {
             // Get authentication object from SecurityContext
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
             // If user is not authenticated
             if (authentication == null || authentication.getPrincipal() == "anonymousUser") {
-                response.put("status", "error");
-                response.put("message", "User not authenticated");
-                return ResponseEntity.status(401).body(response);
+                return ResponseEntity.status(401).body(ApiResponse.error("User not authenticated"));
+            }
+
+            // Only malformed parameters are the client's fault; service failures are not
+            ProductFilter filter;
+            ProductCursor cursor;
+            try {
+                filter = new ProductFilter(minPrice, maxPrice, owner, ProductSort.parse(sort));
+                cursor = after == null ? null : ProductCursor.parse(filter.sort(), after);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Invalid query parameters.", e.getMessage()));
+            }
+
+            // Filtered and sorted listings are always paginated, continuing in their own order
+            if (filter.isFiltered()) {
+                List<ProductSummary> products = productService.getFilteredProductsPage(filter, cursor, limit);
+                return productsPage(products, limit, filter.sort(), mediaType);
+            }
+
+            // Keyset pagination when a cursor or page size is given, otherwise all products
+            if (cursor != null || limit != null) {
+                Long afterId = cursor == null ? null : cursor.id();
+                return productsPage(productService.getProductsPage(afterId, limit), limit, ProductSort.ID,
+                        mediaType);
+            }
+
+            // Probe for a single row before the envelope is opened, so an empty
+            // catalog can still be answered with 404
+            if (productService.getProductsPage(null, 1).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("No products found.", List.of()));
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while fetching products.", e.getMessage()));
+        }
+
+        // The full catalog is written while it is read instead of being collected first.
+        // Once the body has started, a failure can only abort the response. Its duration
+        // depends on the client's download speed, so it is kept out of the adaptive limit.
+        servletRequest.setAttribute(RateLimitFilter.UNSAMPLED_LATENCY, Boolean.TRUE);
+        writeAllProducts(servletResponse, mediaType);
+        return null;
+    }
+
+    // Streams the whole catalog as newline-delimited JSON with constant memory use
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // If user is not authenticated
+        if (authentication == null || authentication.getPrincipal() == "anonymousUser") {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                productService.streamAllProducts(product -> {
+                    try {
+                        generator.writeObject(product);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
             }
+        };
+
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // The logged-in user's own products, one keyset page at a time
+    @GetMapping(value = "/user/products")
+    public ResponseEntity<?> getOwnProducts(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
 
-            // Retrieve all products
-            List<ProductModel> products = productService.getAllProducts();
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            // Get the userId from the principal verified by JwtAuthenticationFilter
+            Long userId = getAuthenticatedUserId(authentication);
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("User not authenticated"));
+            }
+
+            List<ProductSummary> products = productService.getProductsByOwner(userId, after, limit);
 
             if (products.isEmpty()) {
-                response.put("status", "error");
-                response.put("message", "No products found.");
-                response.put("details", new ArrayList<>());
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("No products found.", List.of()));
             }
 
-            response.put("status", "success");
-            response.put("message", "All products are available.");
-            response.put("details", products);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(ProductEtags.ofPage(products, ProductMediaTypes.negotiate(accept)))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(PageResponse.success("Your products are available.", products,
+                            nextCursor(products, limit, ProductSort.ID)));
         } catch (Exception e) {
-            response.put("status", "error");
-            response.put("message", "An error occurred while fetching products.");
-            response.put("details", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while fetching your products.", e.getMessage()));
         }
     }
 
@@ -90,17 +235,14 @@ public class ProductController {
                 return ResponseEntity.status(401).body(response);
             }
 
-            // Get the userId from the token (this assumes you have a method to extract the
-            // // user ID
-            String token = authentication.getCredentials() != null ? authentication.getCredentials().toString() : null;
-            if (token == null) {
+            // Get the userId from the principal verified by JwtAuthenticationFilter
+            Long userId = getAuthenticatedUserId(authentication);
+            if (userId == null) {
                 response.put("status", "error");
                 response.put("message", "JWT token is missing.");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
 
-            Long userId = jwtService.getUserIdFromToken(token);
-
             // Check if there are validation errors in the request body
             if (bindingResult.hasErrors()) {
                 response.put("status", "error");
@@ -109,16 +251,18 @@ public class ProductController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
 
-            // Retrieve the user from the database based on the userId
-            Optional<UserModel> user = jwtService.getUserById(userId);
+            // Check that the user still exists, through the principal cache
+            Optional<UserSnapshot> user = userService.getUserSnapshot(userId);
             if (user.isEmpty()) {
                 response.put("status", "error");
                 response.put("message", "User not found.");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            // Set the user automatically on the productModel
-            productModel.setUser(user.get());
+            // Always a new product: an id in the body must not overwrite an existing one.
+            // The owner is set as a reference; only its id is written, so it is never loaded.
+            productModel.setId(null);
+            productModel.setUser(userService.getUserReference(userId));
 
             // Save the product
             ProductModel createdProduct = productService.createProduct(productModel);
@@ -137,69 +281,68 @@ public class ProductController {
     }
 
     @GetMapping(value = "/products/{id}")
-    public ResponseEntity<Map<String, Object>> getProductById(@PathVariable("id") Long productId) {
-        Map<String, Object> response = new HashMap<>();
+    public ResponseEntity<ApiResponse<?>> getProductById(@PathVariable("id") Long productId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest webRequest, HttpServletResponse servletResponse) throws IOException {
+        Optional<SerializedProduct> product;
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
             // If user is not authenticated
             if (authentication == null || authentication.getPrincipal() == "anonymousUser") {
-                response.put("status", "error");
-                response.put("message", "User not authenticated");
-                return ResponseEntity.status(401).body(response);
+                return ResponseEntity.status(401).body(ApiResponse.error("User not authenticated"));
             }
 
-            // Retrieve the product by ID
-            Optional<ProductModel> product = productService.getProductById(productId);
+            // Retrieve the product's JSON, serialized once per version and cached
+            product = productService.getSerializedProduct(productId);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while fetching the product.", e.getMessage()));
+        }
 
-            if (product.isEmpty()) {
-                response.put("status", "error");
-                response.put("message", "Product not found.");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-            }
+        if (product.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Product not found."));
+        }
 
-            response.put("status", "success");
-            response.put("message", "Product found.");
-            response.put("details", product.get());
-            return ResponseEntity.ok(response);
+        // Binary formats re-encode the cached JSON through the CBOR or Smile converter
+        MediaType mediaType = ProductMediaTypes.negotiate(accept);
+        String eTag = ProductEtags.of(product.get().version(), mediaType);
+        if (ProductMediaTypes.isBinary(mediaType)) {
+            JsonNode details = objectMapper.readTree(product.get().json());
+            return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(mediaType)
+                    .body(ApiResponse.success("Product found.", details));
+        }
 
-        } catch (Exception e) {
-            response.put("status", "error");
-            response.put("message", "An error occurred while fetching the product.");
-            response.put("details", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        // Unchanged products are answered with 304; otherwise the cached bytes are copied
+        // to the response inside the pre-serialized envelope, bypassing the message converters
+        servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (!webRequest.checkNotModified(eTag)) {
+            writeProduct(servletResponse, product.get().json());
         }
+        return null;
     }
 
     @PutMapping(value = "/products/{id}")
     public ResponseEntity<Map<String, Object>> updateProduct(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
             @PathVariable("id") Long productId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Validated @RequestBody ProductModel productModel,
             BindingResult bindingResult) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Validate the authentication header
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                response.put("status", "error");
-                response.put("message", "Unauthorized access. No token provided.");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-            }
-
-            String token = authHeader.substring(7); // Extract token
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            if (!jwtService.validateToken(token)) {
+            // Get the userId from the principal verified by JwtAuthenticationFilter
+            Long userId = getAuthenticatedUserId(authentication);
+            if (userId == null) {
                 response.put("status", "error");
-                response.put("message", "Invalid or expired token");
+                response.put("message", "Unauthorized access. No token provided.");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
 
-            // Get the userId from the token
-            Long userId = jwtService.getUserIdFromToken(token);
-
             // Check if there are validation errors in the request body
             if (bindingResult.hasErrors()) {
                 response.put("status", "error");
@@ -208,37 +351,36 @@ public class ProductController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
 
-            // Retrieve the product by ID
-            Optional<ProductModel> existingProduct = productService.getProductById(productId);
+            // Update the product only if the logged-in user owns it (and If-Match still holds)
+            OwnedProductUpdate update = productService.updateOwnedProduct(productId, userId,
+                    ProductEtags.requiredVersion(ifMatch), productModel);
+            OwnedWriteResult result = update.result();
 
-            if (existingProduct.isEmpty()) {
+            if (result == OwnedWriteResult.NOT_FOUND) {
                 response.put("status", "error");
                 response.put("message", "Product not found.");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            ProductModel product = existingProduct.get();
-
-            // Check if the logged-in user is the owner of the product
-            if (product.getUser().getId() != (userId)) {
+            if (result == OwnedWriteResult.NOT_OWNER) {
                 response.put("status", "error");
                 response.put("message", "You are not authorized to update this product.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
             }
 
-            // Update the fields of the product
-            product.setProductName(productModel.getProductName());
-            product.setDescription(productModel.getDescription());
-            product.setPrice(productModel.getPrice());
-            product.setImage(productModel.getImage());
+            if (result == OwnedWriteResult.VERSION_MISMATCH) {
+                response.put("status", "error");
+                response.put("message", "Product was modified by another request.");
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+            }
 
-            // Save the updated product
-            ProductModel updatedProduct = productService.createProduct(product);
+            // The product as written, with the version produced by this update
+            ProductSummary updatedProduct = update.product();
 
             response.put("status", "success");
             response.put("message", "Product updated successfully.");
             response.put("details", updatedProduct);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(ProductEtags.of(updatedProduct.version())).body(response);
 
         } catch (Exception e) {
             response.put("status", "error");
@@ -250,50 +392,43 @@ public class ProductController {
 
     @DeleteMapping(value = "/products/{id}")
     public ResponseEntity<Map<String, Object>> deleteProduct(
-            @RequestHeader(value = "Authorization", required = false) String authHeader,
-            @PathVariable("id") Long productId) {
+            @PathVariable("id") Long productId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Validate the authentication header
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                response.put("status", "error");
-                response.put("message", "Unauthorized access. No token provided.");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-            }
-
-            String token = authHeader.substring(7); // Extract token
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            if (!jwtService.validateToken(token)) {
+            // Get the userId from the principal verified by JwtAuthenticationFilter
+            Long userId = getAuthenticatedUserId(authentication);
+            if (userId == null) {
                 response.put("status", "error");
-                response.put("message", "Invalid or expired token");
+                response.put("message", "Unauthorized access. No token provided.");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
 
-            // Get the userId from the token
-            Long userId = jwtService.getUserIdFromToken(token);
-
-            // Retrieve the product by ID
-            Optional<ProductModel> existingProduct = productService.getProductById(productId);
+            // Delete the product only if the logged-in user owns it (and If-Match still holds)
+            OwnedWriteResult result = productService.deleteOwnedProduct(productId, userId,
+                    ProductEtags.requiredVersion(ifMatch));
 
-            if (existingProduct.isEmpty()) {
+            if (result == OwnedWriteResult.NOT_FOUND) {
                 response.put("status", "error");
                 response.put("message", "Product not found.");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            ProductModel product = existingProduct.get();
-
-            // Check if the logged-in user is the owner of the product
-            if (product.getUser().getId() != (userId)) {
+            if (result == OwnedWriteResult.NOT_OWNER) {
                 response.put("status", "error");
                 response.put("message", "You are not authorized to delete this product.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
             }
 
-            // Delete the product
-            productService.deleteProduct(productId);
+            if (result == OwnedWriteResult.VERSION_MISMATCH) {
+                response.put("status", "error");
+                response.put("message", "Product was modified by another request.");
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+            }
 
             response.put("status", "success");
             response.put("message", "Product deleted successfully.");
@@ -307,41 +442,416 @@ public class ProductController {
         }
     }
 
-    @GetMapping(value = "/products/search")
-    public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam String productName) {
+    @PostMapping(value = "/products/batch")
+    public ResponseEntity<Map<String, Object>> createProducts(@RequestBody List<ProductModel> productModels) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Get authentication object from SecurityContext
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-            // If user is not authenticated
-            if (authentication == null || "anonymousUser".equals(authentication.getPrincipal())) {
+            Long userId = getAuthenticatedUserId(authentication);
+            if (userId == null) {
                 response.put("status", "error");
                 response.put("message", "User not authenticated");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
 
-            // Search for products by name (case-insensitive)
-            List<ProductModel> products = productService.searchProductsByName(productName);
+            if (!isValidBatchSize(productModels, response)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
 
-            if (products.isEmpty()) {
+            // Resolve the owner once for the whole batch
+            Optional<UserSnapshot> user = userService.getUserSnapshot(userId);
+            if (user.isEmpty()) {
                 response.put("status", "error");
-                response.put("message", "No products found matching the search criteria.");
-                response.put("details", new ArrayList<>());
+                response.put("message", "User not found.");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
+            UserModel owner = userService.getUserReference(userId);
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            List<ProductModel> toSave = new ArrayList<>();
+            List<Integer> toSaveIndexes = new ArrayList<>();
+
+            for (int i = 0; i < productModels.size(); i++) {
+                ProductModel productModel = productModels.get(i);
+                if (hasMissingFields(productModel)) {
+                    results.add(batchResult(i, null, "error", "Invalid input data"));
+                    continue;
+                }
+                productModel.setId(null);
+                productModel.setUser(owner);
+                toSave.add(productModel);
+                toSaveIndexes.add(i);
+            }
+
+            List<ProductModel> savedProducts = productService.saveProducts(toSave);
+            for (int i = 0; i < savedProducts.size(); i++) {
+                results.add(batchResult(toSaveIndexes.get(i), savedProducts.get(i).getId(), "created", null));
+            }
+
+            return batchResponse(response, results, "Products created.");
+
+        } catch (Exception e) {
+            response.put("status", "error");
+            response.put("message", "An error occurred while creating the products.");
+            response.put("details", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @PutMapping(value = "/products/batch")
+    public ResponseEntity<Map<String, Object>> updateProducts(@RequestBody List<ProductModel> productModels) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            Long userId = getAuthenticatedUserId(authentication);
+            if (userId == null) {
+                response.put("status", "error");
+                response.put("message", "User not authenticated");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+
+            if (!isValidBatchSize(productModels, response)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            List<ProductModel> toSave = new ArrayList<>();
+            List<Integer> toSaveIndexes = new ArrayList<>();
+
+            for (int i = 0; i < productModels.size(); i++) {
+                ProductModel productModel = productModels.get(i);
+
+                if (hasMissingFields(productModel)) {
+                    results.add(batchResult(i, productModel == null ? null : productModel.getId(), "error",
+                            "Invalid input data"));
+                } else if (productModel.getId() == null) {
+                    results.add(batchResult(i, null, "error", "Product not found."));
+                } else {
+                    toSave.add(productModel);
+                    toSaveIndexes.add(i);
+                }
+            }
+
+            // The products are loaded, checked for ownership and changed in the update transaction
+            List<OwnedWriteResult> outcomes = productService.updateOwnedProducts(userId, toSave);
+            for (int i = 0; i < outcomes.size(); i++) {
+                Long productId = toSave.get(i).getId();
+                OwnedWriteResult outcome = outcomes.get(i);
+                if (outcome == OwnedWriteResult.NOT_FOUND) {
+                    results.add(batchResult(toSaveIndexes.get(i), productId, "error", "Product not found."));
+                } else if (outcome == OwnedWriteResult.NOT_OWNER) {
+                    results.add(batchResult(toSaveIndexes.get(i), productId, "error",
+                            "You are not authorized to update this product."));
+                } else {
+                    results.add(batchResult(toSaveIndexes.get(i), productId, "updated", null));
+                }
+            }
+
+            return batchResponse(response, results, "Products updated.");
+
+        } catch (Exception e) {
+            response.put("status", "error");
+            response.put("message", "An error occurred while updating the products.");
+            response.put("details", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @DeleteMapping(value = "/products/batch")
+    public ResponseEntity<Map<String, Object>> deleteProducts(@RequestBody List<Long> productIds) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            Long userId = getAuthenticatedUserId(authentication);
+            if (userId == null) {
+                response.put("status", "error");
+                response.put("message", "User not authenticated");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+
+            if (!isValidBatchSize(productIds, response)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+
+            Map<Long, ProductModel> existingProducts = productService
+                    .getProductsByIds(productIds.stream().filter(Objects::nonNull).toList());
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            Set<Long> toDelete = new LinkedHashSet<>();
+
+            for (int i = 0; i < productIds.size(); i++) {
+                Long productId = productIds.get(i);
+                ProductModel product = productId == null ? null : existingProducts.get(productId);
+
+                if (product == null) {
+                    results.add(batchResult(i, productId, "error", "Product not found."));
+                } else if (!userId.equals(product.getUser().getId())) {
+                    results.add(batchResult(i, productId, "error", "You are not authorized to delete this product."));
+                } else if (!toDelete.add(productId)) {
+                    results.add(batchResult(i, productId, "error", "Duplicate product id."));
+                } else {
+                    results.add(batchResult(i, productId, "deleted", null));
+                }
+            }
+
+            if (!toDelete.isEmpty()) {
+                productService.deleteProducts(toDelete);
+            }
+
+            return batchResponse(response, results, "Products deleted.");
 
-            response.put("status", "success");
-            response.put("message", "Products found.");
-            response.put("details", products);
-            return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("status", "error");
-            response.put("message", "An error occurred while searching for products.");
+            response.put("message", "An error occurred while deleting the products.");
             response.put("details", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
 
+    // Product creates, updates and deletes after the ?since= cursor, oldest first. When
+    // there are none yet the request waits up to the long-poll timeout and then answers
+    // with no changes; without ?since= it answers at once with the cursor to start from.
+    // A cursor older than the retention period is answered with 410 Gone.
+    @GetMapping(value = "/products/changes")
+    public CompletableFuture<ResponseEntity<?>> getProductChanges(
+            @RequestParam(value = "since", required = false) Long since,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            // If user is not authenticated
+            if (authentication == null || "anonymousUser".equals(authentication.getPrincipal())) {
+                return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(ApiResponse.error("User not authenticated")));
+            }
+
+            if (since == null) {
+                return completed(ResponseEntity.ok(PageResponse.success("No product changes.", List.of(),
+                        Long.toString(productChangeFeed.currentCursor()))));
+            }
+            if (since < 0) {
+                return completed(ResponseEntity.badRequest().body(ApiResponse.error("Invalid query parameters.")));
+            }
+            if (productChangeFeed.isPruned(since)) {
+                return completed(ResponseEntity.status(HttpStatus.GONE).body(changesPruned()));
+            }
+
+            CompletableFuture<List<ProductChangeModel>> changes = productChangeFeed.awaitChanges(since,
+                    PageResponse.resolvePageSize(limit), longPollTimeout);
+            if (changes == null) {
+                return completed(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(ApiResponse.error("Too many change consumers, please retry shortly")));
+            }
+            return changes.thenApply(page -> ResponseEntity.ok(page.isEmpty()
+                    ? PageResponse.success("No product changes.", page, since.toString())
+                    : PageResponse.success("Product changes.", page, page.get(page.size() - 1).getId().toString())));
+        } catch (Exception e) {
+            return completed(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while fetching product changes.", e.getMessage())));
+        }
+    }
+
+    // The same changes as server-sent events, one per change with its id as the event id,
+    // so a reconnecting EventSource resumes after the last event it received. A cursor
+    // older than the retention period gets 410 Gone with a single error event, which
+    // also stops EventSource from reconnecting.
+    @GetMapping(value = "/products/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProductChanges(
+            @RequestParam(value = "since", required = false) Long since,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // If user is not authenticated
+        if (authentication == null || "anonymousUser".equals(authentication.getPrincipal())) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        long cursor = lastEventId != null ? lastEventId : since != null ? since : productChangeFeed.currentCursor();
+        if (productChangeFeed.isPruned(cursor)) {
+            SseEmitter emitter = new SseEmitter();
+            try {
+                emitter.send(SseEmitter.event().name("error").data(changesPruned(), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return ResponseEntity.status(HttpStatus.GONE).contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Runnable unsubscribe = productChangeFeed.subscribe(cursor, PageResponse.resolvePageSize(limit),
+                changes -> {
+                    for (ProductChangeModel change : changes) {
+                        emitter.send(SseEmitter.event().id(change.getId().toString())
+                                .data(change, MediaType.APPLICATION_JSON));
+                    }
+                }, emitter::complete);
+        if (unsubscribe == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    @GetMapping(value = "/products/search")
+    public ResponseEntity<ApiResponse<?>> searchProducts(@RequestParam String productName,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        try {
+            // Get authentication object from SecurityContext
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            // If user is not authenticated
+            if (authentication == null || "anonymousUser".equals(authentication.getPrincipal())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("User not authenticated"));
+            }
+
+            // Shorter terms have no gram in the search index and would match nearly everything
+            if (productName.trim().length() < ProductSearchIndex.MIN_QUERY_LENGTH) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Invalid query parameters.",
+                        "productName must be at least " + ProductSearchIndex.MIN_QUERY_LENGTH + " characters."));
+            }
+
+            // Search product names and descriptions (case-insensitive), best matches first
+            List<ProductSummary> products = productService.searchProductsByName(productName, limit);
+
+            if (products.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("No products found matching the search criteria.", List.of()));
+            }
+
+            return ResponseEntity.ok().eTag(ProductEtags.ofPage(products, ProductMediaTypes.negotiate(accept)))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(ApiResponse.success("Products found.", products));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while searching for products.", e.getMessage()));
+        }
+    }
+
+    private static ApiResponse<?> changesPruned() {
+        return ApiResponse.error("Product changes after the cursor have been pruned. "
+                + "Reload the products and continue from the cursor returned without since.");
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private ResponseEntity<?> productsPage(List<ProductSummary> products, Integer limit, ProductSort sort,
+            MediaType mediaType) {
+        if (products.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("No products found.", List.of()));
+        }
+
+        // Unchanged pages are answered with 304 before the body is serialized
+        return ResponseEntity.ok().eTag(ProductEtags.ofPage(products, mediaType)).varyBy(HttpHeaders.ACCEPT)
+                .body(PageResponse.success("All products are available.", products,
+                        nextCursor(products, limit, sort)));
+    }
+
+    // A full page means there may be more products after the last one: id order
+    // continues from its id, other orders from an opaque (sort value, id) token
+    private String nextCursor(List<ProductSummary> products, Integer limit, ProductSort sort) {
+        if (products.size() < PageResponse.resolvePageSize(limit)) {
+            return null;
+        }
+        ProductSummary last = products.get(products.size() - 1);
+        return sort == ProductSort.ID ? last.id().toString() : ProductCursor.of(sort, last).encode();
+    }
+
+    private void writeProduct(HttpServletResponse servletResponse, byte[] json) throws IOException {
+        servletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletResponse.setContentLength(PRODUCT_FOUND_PREFIX.length + json.length + 1);
+        ServletOutputStream outputStream = servletResponse.getOutputStream();
+        outputStream.write(PRODUCT_FOUND_PREFIX);
+        outputStream.write(json);
+        outputStream.write('}');
+    }
+
+    // Writes the catalog envelope token by token, one product row at a time, in the
+    // negotiated format
+    private void writeAllProducts(HttpServletResponse servletResponse, MediaType mediaType) throws IOException {
+        servletResponse.setContentType(mediaType.toString());
+        servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        ObjectMapper mapper = ProductMediaTypes.mapperFor(mediaType, objectMapper);
+        try (JsonGenerator generator = mapper.createGenerator(servletResponse.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("status", "success");
+            generator.writeStringField("message", "All products are available.");
+            generator.writeArrayFieldStart("details");
+            productService.streamAllProducts(product -> {
+                try {
+                    generator.writeObject(product);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private boolean isValidBatchSize(List<?> items, Map<String, Object> response) {
+        if (items == null || items.isEmpty() || items.size() > ProductService.MAX_BATCH_SIZE) {
+            response.put("status", "error");
+            response.put("message", "A batch must contain between 1 and " + ProductService.MAX_BATCH_SIZE + " items.");
+            return false;
+        }
+        return true;
+    }
+
+    // Mirrors the constraints declared on ProductModel for each batch item
+    private boolean hasMissingFields(ProductModel productModel) {
+        return productModel == null
+                || productModel.getProductName() == null || productModel.getProductName().isBlank()
+                || productModel.getDescription() == null || productModel.getDescription().isBlank()
+                || productModel.getPrice() == null
+                || productModel.getImage() == null || productModel.getImage().isBlank();
+    }
+
+    private Map<String, Object> batchResult(int index, Long productId, String status, String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        result.put("id", productId);
+        result.put("status", status);
+        if (message != null) {
+            result.put("message", message);
+        }
+        return result;
+    }
+
+    private ResponseEntity<Map<String, Object>> batchResponse(Map<String, Object> response,
+            List<Map<String, Object>> results, String message) {
+        results.sort(Comparator.comparingInt(result -> (Integer) result.get("index")));
+        long failed = results.stream().filter(result -> "error".equals(result.get("status"))).count();
+
+        response.put("status", "success");
+        response.put("message", message);
+        response.put("succeeded", results.size() - failed);
+        response.put("failed", failed);
+        response.put("details", results);
+        return ResponseEntity.ok(response);
+    }
+
+    // Returns the user ID of the principal set by JwtAuthenticationFilter, or null if there is none
+    private Long getAuthenticatedUserId(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal.id();
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,70 @@
+package com.example.product.Controller;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+
+import com.example.product.Model.ProductSummary;
+
+// ETags for product responses, derived from ids and @Version values so that a
+// conditional request is answered without serializing or hashing the response body.
+// Single products get strong tags for If-Match; pages get weak ones, which Tomcat
+// still compresses. JSON, CBOR and Smile responses each have their own tag.
+final class ProductEtags {
+
+    // Never equal to a stored version, which starts at 0
+    static final long UNMATCHABLE_VERSION = -1;
+
+    private ProductEtags() {
+    }
+
+    static String of(long version) {
+        return of(version, MediaType.APPLICATION_JSON);
+    }
+
+    static String of(long version, MediaType mediaType) {
+        return "\"" + version + suffix(mediaType) + "\"";
+    }
+
+    // Changes whenever a product on the page is added, removed or updated
+    static String ofPage(List<ProductSummary> products, MediaType mediaType) {
+        long hash = 0xcbf29ce484222325L;
+        for (ProductSummary product : products) {
+            hash = mix(hash ^ product.id());
+            hash = mix(hash ^ product.version());
+        }
+        return "W/\"" + Long.toHexString(hash) + "-" + products.size() + suffix(mediaType) + "\"";
+    }
+
+    // Version required by an If-Match header: null when there is none or it is "*".
+    // Weak or malformed tags can never match a strong ETag; any format's tag names the version.
+    static Long requiredVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return UNMATCHABLE_VERSION;
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int suffix = value.indexOf('-');
+        try {
+            return Long.parseLong(suffix < 0 ? value : value.substring(0, suffix));
+        } catch (NumberFormatException e) {
+            return UNMATCHABLE_VERSION;
+        }
+    }
+
+    // JSON keeps the plain tag; binary formats are told apart by a suffix
+    private static String suffix(MediaType mediaType) {
+        if (MediaType.APPLICATION_CBOR.equals(mediaType)) {
+            return "-cbor";
+        }
+        return ProductMediaTypes.SMILE.equals(mediaType) ? "-smile" : "";
+    }
+
+    private static long mix(long value) {
+        value *= 0x9E3779B97F4A7C15L;
+        return value ^ (value >>> 32);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.product.Controller;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Formats of product responses. JSON is the default; CBOR and Smile carry the same
+// envelope in a compact binary encoding. Responses returned as ResponseEntity are
+// negotiated by the Jackson message converters, this class serves the paths that
+// write to the response themselves.
+final class ProductMediaTypes {
+
+    static final String SMILE_VALUE = "application/x-jackson-smile";
+    static final MediaType SMILE = MediaType.valueOf(SMILE_VALUE);
+
+    private static final List<MediaType> SUPPORTED = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            SMILE);
+
+    // Configured like the mappers of Spring's CBOR and Smile message converters
+    private static final ObjectMapper CBOR_MAPPER = Jackson2ObjectMapperBuilder.cbor().build();
+    private static final ObjectMapper SMILE_MAPPER = Jackson2ObjectMapperBuilder.smile().build();
+
+    private ProductMediaTypes() {
+    }
+
+    // The first supported format the Accept header allows, most specific types first;
+    // JSON when the header is absent, a wildcard, invalid or names nothing supported
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType acceptedType : accepted) {
+            for (MediaType supported : SUPPORTED) {
+                if (acceptedType.isCompatibleWith(supported)) {
+                    return supported;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    static boolean isBinary(MediaType mediaType) {
+        return !MediaType.APPLICATION_JSON.equals(mediaType);
+    }
+
+    // Mapper that writes the given format; json is the application's JSON mapper
+    static ObjectMapper mapperFor(MediaType mediaType, ObjectMapper json) {
+        if (MediaType.APPLICATION_CBOR.equals(mediaType)) {
+            return CBOR_MAPPER;
+        }
+        return SMILE.equals(mediaType) ? SMILE_MAPPER : json;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.product.Controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.product.Model.ApiResponse;
+import com.example.product.Model.PageResponse;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Service.ProductSearchIndex;
+import com.example.product.Service.ReactiveProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking product read endpoints, served instead of ProductController when the
+// application runs with the reactive profile. Responses match the servlet ones;
+// authentication is enforced by the reactive security chain.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveProductController(ReactiveProductService reactiveProductService, ObjectMapper objectMapper) {
+        this.reactiveProductService = reactiveProductService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Keyset pagination when a cursor or page size is given, otherwise all products
+    @GetMapping(value = "/products")
+    public Mono<ResponseEntity<?>> getProducts(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType mediaType = ProductMediaTypes.negotiate(accept);
+        return reactiveProductService.getProductsPage(after, limit).collectList()
+                .<ResponseEntity<?>>map(list -> {
+                    if (list.isEmpty()) {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(ApiResponse.error("No products found.", List.of()));
+                    }
+
+                    // A full page means there may be more products after the last id.
+                    // Unchanged pages are answered with 304 before the body is serialized.
+                    boolean hasMore = list.size() >= PageResponse.resolvePageSize(limit);
+                    return ResponseEntity.ok()
+                            .eTag(ProductEtags.ofPage(list, mediaType))
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(PageResponse.success("All products are available.", list,
+                                    hasMore ? list.get(list.size() - 1).id().toString() : null));
+                })
+                .onErrorResume(e -> Mono.just(error("An error occurred while fetching products.", e)));
+    }
+
+    // The full catalog in the envelope of the other listings, written as rows arrive
+    // instead of being collected first. The body is encoded here rather than by the
+    // message writers, which would buffer it to serialize ApiResponse's list.
+    @GetMapping(value = "/products", params = { "!after", "!limit" }, produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, ProductMediaTypes.SMILE_VALUE })
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType mediaType = ProductMediaTypes.negotiate(accept);
+        ObjectMapper mapper = ProductMediaTypes.mapperFor(mediaType, objectMapper);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().contentType(mediaType).varyBy(HttpHeaders.ACCEPT);
+
+        // Probe for a single row before the envelope is opened, so an empty
+        // catalog can still be answered with 404
+        return reactiveProductService.getProductsPage(null, 1)
+                .hasElements()
+                .map(any -> any
+                        ? ok.body(writeAllProducts(mapper))
+                        : ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(mediaType)
+                                .body(encode(mapper, ApiResponse.error("No products found.", List.of()))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .contentType(mediaType)
+                        .body(encode(mapper, ApiResponse.error("An error occurred while fetching products.",
+                                e.getMessage())))));
+    }
+
+    // Streams the whole catalog as newline-delimited JSON as rows arrive from the database
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductSummary> streamProducts() {
+        return reactiveProductService.getAllProducts();
+    }
+
+    @GetMapping(value = "/products/{id}")
+    public Mono<ResponseEntity<ApiResponse<?>>> getProductById(@PathVariable("id") Long productId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return reactiveProductService.getProductById(productId)
+                .<ResponseEntity<ApiResponse<?>>>map(product -> ResponseEntity.ok()
+                        .eTag(ProductEtags.of(product.version(), ProductMediaTypes.negotiate(accept)))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(ApiResponse.success("Product found.", product)))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Product not found."))))
+                .onErrorResume(e -> Mono.just(error("An error occurred while fetching the product.", e)));
+    }
+
+    @GetMapping(value = "/products/search")
+    public Mono<ResponseEntity<ApiResponse<?>>> searchProducts(@RequestParam String productName,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // Shorter terms have no gram in the search index and would match nearly everything
+        if (productName.trim().length() < ProductSearchIndex.MIN_QUERY_LENGTH) {
+            return Mono.just(ResponseEntity.badRequest().body(ApiResponse.error("Invalid query parameters.",
+                    "productName must be at least " + ProductSearchIndex.MIN_QUERY_LENGTH + " characters.")));
+        }
+
+        return reactiveProductService.searchProductsByName(productName, limit)
+                .collectList()
+                .<ResponseEntity<ApiResponse<?>>>map(products -> {
+                    if (products.isEmpty()) {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(ApiResponse.error("No products found matching the search criteria.", List.of()));
+                    }
+
+                    return ResponseEntity.ok().eTag(ProductEtags.ofPage(products, ProductMediaTypes.negotiate(accept)))
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(ApiResponse.success("Products found.", products));
+                })
+                .onErrorResume(e -> Mono.just(error("An error occurred while searching for products.", e)));
+    }
+
+    // Once the body has started, a failure can only abort the response
+    private Flux<DataBuffer> writeAllProducts(ObjectMapper mapper) {
+        return Flux.using(() -> new EnvelopeWriter(mapper), writer -> Flux.concat(
+                Mono.fromCallable(writer::start),
+                reactiveProductService.getAllProducts().map(writer::write),
+                Mono.fromCallable(writer::end)), EnvelopeWriter::close)
+                .map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    private static Flux<DataBuffer> encode(ObjectMapper mapper, Object body) {
+        return Mono.fromCallable(() -> mapper.writeValueAsBytes(body))
+                .<DataBuffer>map(DefaultDataBufferFactory.sharedInstance::wrap)
+                .flux();
+    }
+
+    // One generator for the whole response, so binary formats keep their header and
+    // back-references; each call returns the bytes written since the previous one
+    private static final class EnvelopeWriter {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final JsonGenerator generator;
+
+        private EnvelopeWriter(ObjectMapper mapper) throws IOException {
+            this.generator = mapper.createGenerator(buffer);
+        }
+
+        private byte[] start() throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("status", "success");
+            generator.writeStringField("message", "All products are available.");
+            generator.writeArrayFieldStart("details");
+            return flush();
+        }
+
+        private byte[] write(ProductSummary product) {
+            try {
+                generator.writeObject(product);
+                return flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write product " + product.id(), e);
+            }
+        }
+
+        private byte[] end() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            return flush();
+        }
+
+        private byte[] flush() throws IOException {
+            generator.flush();
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+
+        private void close() {
+            try {
+                generator.close();
+            } catch (IOException e) {
+                // Nothing is left to write
+            }
+        }
+    }
+
+    private ResponseEntity<ApiResponse<?>> error(String message, Throwable e) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiResponse.error(message, e.getMessage()));
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.product.Controller;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
@@ -18,57 +28,94 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.example.product.Model.ApiResponse;
+import com.example.product.Model.AuthenticatedUser;
+import com.example.product.Model.PageResponse;
+import com.example.product.Model.UserCursor;
 import com.example.product.Model.UserModel;
-import com.example.product.Repository.UserRepository;
+import com.example.product.Model.UserSnapshot;
 
 import jakarta.validation.Valid;
 
 import com.example.product.Service.JwtService;
+import com.example.product.Service.TokenRevocationService;
 import com.example.product.Service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
+    private static final Logger log = LoggerFactory.getLogger(UserController.class);
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private UserRepository userRepository;
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Autowired
-    private JwtService jwtService;
+    private ObjectMapper objectMapper;
 
+    // One keyset page of users, optionally filtered by last name or email prefix. Only the
+    // public columns are read; pass nextCursor back as ?after= for the next page.
     @GetMapping(value = "/users")
-    public ResponseEntity<Map<String, Object>> getUsers(
-            @RequestHeader(value = "Authorization", required = true) String authHeader) {
-        Map<String, Object> response = new HashMap<>();
+    public ResponseEntity<?> getUsers(
+            @RequestHeader(value = "Authorization", required = true) String authHeader,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
 
         try {
-
-            List<UserModel> users = userService.getAllUsers();
+            List<UserSnapshot> users = userService.getUsersPage(name, email, after, limit);
 
             if (users.isEmpty()) {
-                response.put("status", "error");
-                response.put("message", "No users Found");
-                response.put("details", new ArrayList<>());
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("No users Found", List.of()));
             }
 
-            response.put("status", "success");
-            response.put("message", "All users are available here.");
-            response.put("details", users);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(PageResponse.success("All users are available here.", users,
+                    nextCursor(users, name, email, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Invalid query parameters.", e.getMessage()));
         } catch (Exception e) {
-            response.put("status", "error");
-            response.put("message", "An error occurred while fetching users.");
-            response.put("details", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("An error occurred while fetching users.", e.getMessage()));
         }
     }
 
+    // Exports every user as newline-delimited JSON with constant memory use
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestHeader(value = "Authorization", required = true) String authHeader) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                userService.streamAllUsers(user -> {
+                    try {
+                        generator.writeObject(user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @PostMapping(value = "/user")
-    public ResponseEntity<Map<String, Object>> register(@Valid @RequestBody UserModel user, BindingResult result) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> register(@Valid @RequestBody UserModel user,
+            BindingResult result) {
         Map<String, Object> response = new HashMap<>();
 
         if (result.hasErrors()) {
@@ -77,35 +124,72 @@ public class UserController {
             response.put("status", "error");
             response.put("message", "Validation failed");
             response.put("details", validationErrors);
-            return ResponseEntity.badRequest().body(response);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(response));
         }
 
+        CompletableFuture<UserModel> registration;
         try {
-            userService.registerUser(user);
-            response.put("status", "success");
-            response.put("message", "User added successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            e.printStackTrace();
+            // Hashes the password and inserts the user on the password hashing pool
+            registration = userService.registerUser(user);
+        } catch (TaskRejectedException e) {
             response.put("status", "error");
+            response.put("message", "Too many registrations, please retry shortly");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response));
+        }
+
+        return registration.handle((registered, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause == null) {
+                response.put("status", "success");
+                response.put("message", "User added successfully");
+                return ResponseEntity.ok(response);
+            }
+
+            response.put("status", "error");
+            if (cause instanceof DuplicateKeyException) {
+                response.put("message", "Email is already in use");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            log.warn("Error occurred while adding user", cause);
             response.put("message", "Error occurred while adding user");
-            response.put("details", e.getMessage());
+            response.put("details", cause.getMessage());
             return ResponseEntity.badRequest().body(response);
-        }
+        });
     }
 
     @PostMapping(value = "/login")
-    public ResponseEntity<Map<String, Object>> login(@RequestBody UserModel userModel) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> login(@RequestBody UserModel userModel) {
         Map<String, Object> response = new HashMap<>();
 
-        // Check if the user exists in the database
-        Optional<UserModel> optionalUser = userRepository.findByEmail(userModel.getEmail());
+        // Check if the user exists in the database (the only lookup of the login)
+        UserModel user = userService.getUserByEmail(userModel.getEmail());
 
-        if (optionalUser.isPresent()) {
-            UserModel user = optionalUser.get();
+        if (user == null) {
+            response.put("status", "error");
+            response.put("message", "User not found");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).body(response));
+        }
 
-            // Check if the password is correct
-            boolean isAuthenticated = userService.authenticate(user.getEmail(), userModel.getPassword());
+        CompletableFuture<Boolean> authentication;
+        try {
+            // Check if the password is correct (runs on the password hashing pool)
+            authentication = userService.authenticate(user, userModel.getPassword());
+        } catch (TaskRejectedException e) {
+            response.put("status", "error");
+            response.put("message", "Too many login attempts, please retry shortly");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(response));
+        }
+
+        return authentication.handle((isAuthenticated, error) -> {
+            if (error != null) {
+                response.put("status", "error");
+                response.put("message", "An error occurred while logging in");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
 
             if (isAuthenticated) {
                 // Generate token with the correct user ID
@@ -119,10 +203,41 @@ public class UserController {
                 response.put("message", "Invalid credentials");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
             }
-        } else {
+        });
+    }
+
+    // Revokes the token of this request; the user's other tokens stay valid
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            Claims claims = authentication != null && authentication.getCredentials() instanceof String token
+                    ? jwtService.getVerifiedClaims(token)
+                    : null;
+            if (claims == null || !(authentication.getPrincipal() instanceof AuthenticatedUser principal)) {
+                response.put("status", "error");
+                response.put("message", "User not authenticated");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+            }
+
+            // Tokens issued before the jti claim existed can only be revoked all together
+            if (claims.getId() != null) {
+                tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            } else {
+                tokenRevocationService.revokeUserTokens(principal.id());
+            }
+
+            response.put("status", "success");
+            response.put("message", "Logged out successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
             response.put("status", "error");
-            response.put("message", "User not found");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            response.put("message", "An error occurred while logging out");
+            response.put("details", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
 
@@ -141,13 +256,13 @@ public class UserController {
                 return ResponseEntity.status(401).body(response);
             }
 
-            // Extract username (email) from authentication
-            String email = authentication.getName();
-
-            // Retrieve user details from database
-            UserModel user = userService.getUserByEmail(email);
+            // Served from the principal cache, by the id in the verified token; the
+            // snapshot never contains the password hash
+            Optional<UserSnapshot> user = authentication.getPrincipal() instanceof AuthenticatedUser principal
+                    ? userService.getUserSnapshot(principal.id())
+                    : userService.getUserSnapshotByEmail(authentication.getName());
 
-            if (user == null) {
+            if (user.isEmpty()) {
                 response.put("status", "error");
                 response.put("message", "User not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
@@ -155,7 +270,7 @@ public class UserController {
 
             response.put("status", "success");
             response.put("message", "User details retrieved successfully");
-            response.put("details", user);
+            response.put("details", user.get());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("status", "error");
@@ -180,22 +295,14 @@ public class UserController {
                 return ResponseEntity.status(401).body(response);
             }
 
-            // Extract username (email) from authentication
-            String email = authentication.getName();
-
-            // Retrieve user details from database
-            UserModel user = userService.getUserByEmail(email);
-
-            // Check if the user exists
-            if (user == null) {
+            // Soft-delete by the id in the verified token; products are purged in the background
+            if (!(authentication.getPrincipal() instanceof AuthenticatedUser principal)
+                    || !userService.deleteUser(principal.id())) {
                 response.put("status", "error");
                 response.put("message", "User not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            // Delete the user from the database
-            userService.deleteUserByEmail(email);
-
             response.put("status", "success");
             response.put("message", "User deleted successfully");
             return ResponseEntity.ok(response);
@@ -247,15 +354,12 @@ public class UserController {
             }
             // (add more fields as necessary)
 
-            // Save the updated user data
+            // Save the updated user data; this also drops the cached snapshot
             userService.saveUser(user);
 
-            // Exclude the password when returning the user details
-            user.setPassword(null); // Set password to null to exclude it
-
             response.put("status", "success");
             response.put("message", "User details updated successfully");
-            response.put("details", user);
+            response.put("details", UserSnapshot.from(user));
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
@@ -266,4 +370,17 @@ public class UserController {
         }
     }
 
+    // A full page means there may be more users: id order continues from the last id,
+    // prefix listings from a token of the last user's ordering column and id
+    private static String nextCursor(List<UserSnapshot> users, String name, String email, Integer limit) {
+        if (users.size() < PageResponse.resolvePageSize(limit)) {
+            return null;
+        }
+        UserSnapshot last = users.get(users.size() - 1);
+        if (name == null && email == null) {
+            return Long.toString(last.id());
+        }
+        return new UserCursor(name != null ? last.lastName() : last.email(), last.id()).encode();
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.example.product.Filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+// Concurrency limit that adapts to the backend (additive increase, multiplicative
+// decrease). The limit grows by one while requests complete under the latency
+// threshold with nobody waiting for a JDBC connection, and is cut by backoffRatio
+// as soon as either signal shows congestion. Requests over the limit are rejected
+// up front, so load is shed before the connection pool saturates.
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final IntSupplier connectionWaiters;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Read on every request; only written under the monitor in onSample
+    private volatile int limit;
+    private double estimatedLimit;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+            double backoffRatio, IntSupplier connectionWaiters) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid adaptive concurrency limit settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.connectionWaiters = connectionWaiters;
+        this.estimatedLimit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Called once for every successful tryAcquire (or release() instead), with the request's latency
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(latencyNanos, inFlightBefore);
+    }
+
+    // Releases without a sample, for requests whose duration says nothing about the backend
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long latencyNanos, int inFlightBefore) {
+        if (latencyNanos > latencyThresholdNanos || connectionWaiters.getAsInt() > 0) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+        } else if (inFlightBefore * 2 >= estimatedLimit) {
+            // Only grow while the current limit is actually being used
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
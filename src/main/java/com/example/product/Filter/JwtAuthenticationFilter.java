@@ -6,8 +6,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.product.Model.AuthenticatedUser;
 import com.example.product.Service.JwtService;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -27,12 +29,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
 
-            // Validate token
-            if (jwtService.validateToken(token)) {
-                String username = jwtService.extractUsername(token);
+            // Validate token (signature is checked once, then served from the JwtService cache)
+            Claims claims = jwtService.getVerifiedClaims(token);
+            if (claims != null) {
+                AuthenticatedUser principal = new AuthenticatedUser(claims.getSubject(), claims.get("id", Long.class));
 
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        username, token, null);
+                        principal, token, null);
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 // Set the authentication in the security context
@@ -0,0 +1,189 @@
+package com.example.product.Filter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.product.Service.JwtService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Admission control in front of the security filter chain. A request must get a
+// token from its client IP's bucket, from its user's bucket when it carries a valid
+// token, and from the bucket of its route if one is configured (keyed by user, or by
+// IP for anonymous calls such as /login). It is then admitted by the adaptive
+// concurrency limit. Any refusal is answered with 429 before the request reaches
+// BCrypt or the database. Only the time spent in the handler feeds the adaptive
+// limit: streamed and asynchronous responses are paced by the client, not the backend.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Request attribute set by handlers that write a large body while they run (the
+    // full catalog), so that time blocked on the client is not taken as backend latency
+    public static final String UNSAMPLED_LATENCY = RateLimitFilter.class.getName() + ".UNSAMPLED_LATENCY";
+
+    // A route with its own limit, e.g. POST /login
+    public record RouteLimit(String method, String path, TokenBucketRateLimiter limiter) {
+    }
+
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter userLimiter;
+    private final List<RouteLimit> routeLimits;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final JwtService jwtService;
+    // Rejection counters of the token bucket limiters, by limiter name
+    private final Map<String, Counter> rateRejections = new HashMap<>();
+    private final Counter concurrencyRejections;
+    // Paths whose asynchronous phase only waits in memory, such as the change feed's long
+    // polls and event streams; they give their slot back when the handler returns
+    private final Set<String> waitingPaths;
+
+    public RateLimitFilter(TokenBucketRateLimiter ipLimiter, TokenBucketRateLimiter userLimiter,
+            List<RouteLimit> routeLimits, AdaptiveConcurrencyLimiter concurrencyLimiter, JwtService jwtService,
+            MeterRegistry meterRegistry, Set<String> waitingPaths) {
+        this.ipLimiter = ipLimiter;
+        this.userLimiter = userLimiter;
+        this.routeLimits = routeLimits;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.jwtService = jwtService;
+        for (TokenBucketRateLimiter limiter : List.of(ipLimiter, userLimiter)) {
+            rateRejections.put(limiter.name(), rejections(meterRegistry, limiter.name()));
+        }
+        for (RouteLimit routeLimit : routeLimits) {
+            String name = routeLimit.limiter().name();
+            rateRejections.put(name, rejections(meterRegistry, name));
+        }
+        this.concurrencyRejections = rejections(meterRegistry, "concurrency");
+        this.waitingPaths = waitingPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String ip = request.getRemoteAddr();
+        if (rejected(ipLimiter, ip, response)) {
+            return;
+        }
+
+        // The verified token is cached by JwtService, so the JWT filter reuses this check
+        Long userId = userId(request);
+        if (userId != null && rejected(userLimiter, userId.toString(), response)) {
+            return;
+        }
+
+        TokenBucketRateLimiter routeLimiter = routeLimiter(request);
+        if (routeLimiter != null && rejected(routeLimiter, userId != null ? "user:" + userId : "ip:" + ip, response)) {
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            concurrencyRejections.increment();
+            reject(response, 1, "Server is busy, please retry shortly");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long latencyNanos = System.nanoTime() - start;
+            if (request.isAsyncStarted()) {
+                if (waitingPaths.contains(request.getRequestURI())) {
+                    concurrencyLimiter.release();
+                } else {
+                    request.getAsyncContext().addListener(new ReleaseOnComplete());
+                }
+            } else if (request.getAttribute(UNSAMPLED_LATENCY) != null) {
+                concurrencyLimiter.release();
+            } else {
+                concurrencyLimiter.release(latencyNanos);
+            }
+        }
+    }
+
+    private boolean rejected(TokenBucketRateLimiter limiter, String key, HttpServletResponse response)
+            throws IOException {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos == 0) {
+            return false;
+        }
+        rateRejections.get(limiter.name()).increment();
+        // Retry-After is whole seconds, rounded up
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        reject(response, retryAfter, "Too many requests, please retry later");
+        return true;
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"status\":\"error\",\"message\":\"" + message + "\"}");
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String limit) {
+        return Counter.builder("rate.limit.rejected")
+                .description("Requests rejected with 429 by the rate and concurrency limits")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+
+    private Long userId(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return jwtService.getUserIdFromToken(header.substring(7));
+    }
+
+    private TokenBucketRateLimiter routeLimiter(HttpServletRequest request) {
+        for (RouteLimit routeLimit : routeLimits) {
+            if (routeLimit.method().equals(request.getMethod()) && routeLimit.path().equals(request.getRequestURI())) {
+                return routeLimit.limiter();
+            }
+        }
+        return null;
+    }
+
+    // Holds the slot until the asynchronous request completes, without a latency sample;
+    // complete follows timeouts and errors too, so the slot is released exactly once
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            concurrencyLimiter.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        // A new async cycle drops the registered listeners
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.product.Filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.example.product.Model.AuthenticatedUser;
+import com.example.product.Service.JwtService;
+
+import io.jsonwebtoken.Claims;
+import reactor.core.publisher.Mono;
+
+// WebFlux counterpart of JwtAuthenticationFilter. Verification is CPU-only and cached
+// in JwtService, so it runs directly on the event loop.
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private final JwtService jwtService;
+
+    public ReactiveJwtAuthenticationFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // Extract token from Authorization header
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith("Bearer ")) {
+            String token = header.substring(7);
+
+            Claims claims = jwtService.getVerifiedClaims(token);
+            if (claims != null) {
+                AuthenticatedUser principal = new AuthenticatedUser(claims.getSubject(), claims.get("id", Long.class));
+                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                        principal, token, null);
+
+                // Make the authentication visible to the rest of the reactive chain
+                return chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authenticationToken));
+            }
+        }
+        return chain.filter(exchange);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.product.Filter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Token buckets keyed by client (user id, IP address, ...). Each bucket is a single
+// AtomicLong holding the time at which it is full again (the GCRA form of a token
+// bucket), updated with compare-and-set, so the request path takes no locks.
+// A bucket left idle long enough to refill is dropped, and the number of tracked
+// keys is capped, so memory stays bounded even when clients rotate keys.
+public class TokenBucketRateLimiter {
+
+    private final String name;
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(String name, int capacity, double refillPerSecond, long maxKeys) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs a capacity >= 1 and a positive refill rate");
+        }
+        this.name = name;
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = nanosPerToken * capacity;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstNanos, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // Takes a token from the key's bucket. Returns 0 on success, otherwise the
+    // nanoseconds until the next token becomes available.
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long fullAt = bucket.get();
+            long nextFullAt = Math.max(fullAt, now) + nanosPerToken;
+            long wait = nextFullAt - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, nextFullAt)) {
+                return 0;
+            }
+        }
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+}
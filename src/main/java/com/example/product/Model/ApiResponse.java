@@ -0,0 +1,21 @@
+package com.example.product.Model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Typed status/message/details envelope for the hot read endpoints. Serializes to
+// the same JSON as the map-based responses; details is omitted when there are none.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ApiResponse<T>(String status, String message, T details) {
+
+    public static <T> ApiResponse<T> success(String message, T details) {
+        return new ApiResponse<>("success", message, details);
+    }
+
+    public static <T> ApiResponse<T> error(String message) {
+        return new ApiResponse<>("error", message, null);
+    }
+
+    public static <T> ApiResponse<T> error(String message, T details) {
+        return new ApiResponse<>("error", message, details);
+    }
+}
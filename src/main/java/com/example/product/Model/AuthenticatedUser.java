@@ -0,0 +1,13 @@
+package com.example.product.Model;
+
+import java.security.Principal;
+
+// Verified principal stored in the SecurityContext by JwtAuthenticationFilter,
+// so controllers never need to parse the token again
+public record AuthenticatedUser(String email, Long id) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.product.Model;
+
+// Shared settings for the table-backed id generators of ProductModel and UserModel.
+// Each node reserves ALLOCATION_SIZE ids per round trip to the id_allocation table,
+// so inserts do not need a row lock and extra query per entity and can be batched.
+public final class IdAllocation {
+
+    public static final String TABLE = "id_allocation";
+    public static final String ENTITY_COLUMN = "entity";
+    public static final String NEXT_VALUE_COLUMN = "next_value";
+    public static final int ALLOCATION_SIZE = 100;
+
+    public static final String PRODUCT = "product";
+    public static final String USER = "user";
+
+    private IdAllocation() {
+    }
+}
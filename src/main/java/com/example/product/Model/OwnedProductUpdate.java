@@ -0,0 +1,14 @@
+package com.example.product.Model;
+
+// Outcome of an owner-scoped product update, with the product as written (including the
+// version the update produced) when it was applied
+public record OwnedProductUpdate(OwnedWriteResult result, ProductSummary product) {
+
+    public static OwnedProductUpdate applied(ProductSummary product) {
+        return new OwnedProductUpdate(OwnedWriteResult.APPLIED, product);
+    }
+
+    public static OwnedProductUpdate failed(OwnedWriteResult result) {
+        return new OwnedProductUpdate(result, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.product.Model;
+
+// Outcome of an owner-scoped product write. The write is a single conditional statement,
+// so a missing product, another user's product and a stale If-Match version are told
+// apart only after zero rows were affected.
+public enum OwnedWriteResult {
+    APPLIED,
+    NOT_FOUND,
+    NOT_OWNER,
+    VERSION_MISMATCH
+}
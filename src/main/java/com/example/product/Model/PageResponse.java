@@ -0,0 +1,22 @@
+package com.example.product.Model;
+
+import java.util.List;
+
+// Envelope of a keyset page; nextCursor is always written, null on the last page. It is
+// the encoded position to pass back: the last id for id-ordered pages and an opaque
+// cursor token for other orders.
+public record PageResponse<T>(String status, String message, List<T> details, String nextCursor) {
+
+    // Page sizes of every keyset listing (products, users, product changes)
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Clamps a requested page size to [1, MAX_PAGE_SIZE], defaulting to DEFAULT_PAGE_SIZE
+    public static int resolvePageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    public static <T> PageResponse<T> success(String message, List<T> details, String nextCursor) {
+        return new PageResponse<>("success", message, details, nextCursor);
+    }
+}
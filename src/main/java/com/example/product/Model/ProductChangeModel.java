@@ -0,0 +1,43 @@
+package com.example.product.Model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Outbox row for one product create, update or delete, inserted in the transaction of
+// the change itself. The auto-increment id orders the feed and is the consumers' cursor.
+@Entity
+@Table(name = "product_change", indexes = @Index(name = "idx_product_change_changed_at", columnList = "changed_at"))
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangeModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ProductChangeType type;
+
+    // Version of the product after the change; null for deletes
+    private Long version;
+
+    // Epoch milliseconds at which the change was written
+    @Column(nullable = false)
+    private long changedAt;
+
+    // The product's JSON after the change, so consumers need not fetch it; null for deletes
+    @Lob
+    @JsonRawValue
+    private String product;
+}
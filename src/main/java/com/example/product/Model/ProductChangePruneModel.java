@@ -0,0 +1,24 @@
+package com.example.product.Model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// How far the product change feed has been pruned, shared by all instances in a single
+// row. A consumer whose cursor is below prunedThrough has missed changes and must resync.
+@Entity
+@Table(name = "product_change_prune")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangePruneModel {
+
+    public static final long ID = 1L;
+
+    @Id
+    private long id;
+
+    // Highest product change id removed by pruning
+    @Column(nullable = false)
+    private long prunedThrough;
+}
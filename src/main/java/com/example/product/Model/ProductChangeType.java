@@ -0,0 +1,7 @@
+package com.example.product.Model;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,66 @@
+package com.example.product.Model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Keyset position in a sorted product listing: the sort value and id of the last
+// product of a page. Clients receive it as an opaque URL-safe token in nextCursor
+// and send it back as ?after= for the next page.
+public record ProductCursor(String value, long id) {
+
+    public static ProductCursor of(ProductSort sort, ProductSummary product) {
+        String value = switch (sort) {
+            case ID -> null;
+            case PRICE, PRICE_DESC -> String.valueOf(product.price());
+            case NAME, NAME_DESC -> product.productName();
+        };
+        return new ProductCursor(value, product.id());
+    }
+
+    public String encode() {
+        String raw = (value == null ? "" : value) + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The id follows the last comma, so names containing commas still decode
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(',');
+            return new ProductCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    // Reads ?after= in the given order: a plain id for id order and a token otherwise.
+    // Throws IllegalArgumentException when it is malformed or its value does not fit the order.
+    public static ProductCursor parse(ProductSort sort, String after) {
+        if (sort == ProductSort.ID) {
+            try {
+                return new ProductCursor(null, Long.parseLong(after));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + after, e);
+            }
+        }
+        ProductCursor cursor = decode(after);
+        boolean priceOrder = sort == ProductSort.PRICE || sort == ProductSort.PRICE_DESC;
+        if (priceOrder && !isNumber(cursor.value)) {
+            throw new IllegalArgumentException("Invalid cursor: " + after);
+        }
+        return cursor;
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public double priceValue() {
+        return Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.product.Model;
+
+// Optional filters of GET /products; null fields do not restrict the result
+public record ProductFilter(Double minPrice, Double maxPrice, Long ownerId, ProductSort sort) {
+
+    public boolean isFiltered() {
+        return minPrice != null || maxPrice != null || ownerId != null || sort != ProductSort.ID;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.product.Model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -8,6 +9,14 @@ import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 @Entity
+// Owner-led indexes keep ownership checks and per-user listings index range scans; the
+// sort indexes serve filtered listings ordered by price or name with id as the tiebreaker
+@Table(indexes = {
+        @Index(name = "idx_product_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_product_user_id_price_id", columnList = "user_id, price, id"),
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_name_id", columnList = "product_name, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +25,10 @@ import lombok.*;
 public class ProductModel {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_id")
+    @TableGenerator(name = "product_id", table = IdAllocation.TABLE, pkColumnName = IdAllocation.ENTITY_COLUMN,
+            valueColumnName = IdAllocation.NEXT_VALUE_COLUMN, pkColumnValue = IdAllocation.PRODUCT,
+            allocationSize = IdAllocation.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -36,7 +48,14 @@ public class ProductModel {
     private String image;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private UserModel user;
+
+    // Optimistic lock, incremented on every write and served as the product's ETag.
+    // Clients send it back through If-Match rather than in the body.
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
 }
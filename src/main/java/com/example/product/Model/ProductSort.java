@@ -0,0 +1,43 @@
+package com.example.product.Model;
+
+// Orders accepted by GET /products?sort=. The id is always the tiebreaker, so
+// every order is total and can be continued with a keyset cursor.
+public enum ProductSort {
+    ID("id", "id", false),
+    PRICE("price", "price", false),
+    PRICE_DESC("-price", "price", true),
+    NAME("name", "productName", false),
+    NAME_DESC("-name", "productName", true);
+
+    private final String parameter;
+    private final String attribute;
+    private final boolean descending;
+
+    ProductSort(String parameter, String attribute, boolean descending) {
+        this.parameter = parameter;
+        this.attribute = attribute;
+        this.descending = descending;
+    }
+
+    // Parses the sort parameter, e.g. "price" or "-name"; null means id order
+    public static ProductSort parse(String parameter) {
+        if (parameter == null || parameter.isBlank()) {
+            return ID;
+        }
+        for (ProductSort sort : values()) {
+            if (sort.parameter.equals(parameter)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + parameter);
+    }
+
+    // ProductModel attribute the products are ordered by
+    public String attribute() {
+        return attribute;
+    }
+
+    public boolean descending() {
+        return descending;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.product.Model;
+
+// Read model for product listings and search. Selects only the product columns,
+// so the owning UserModel is never loaded; serializes to the same JSON as ProductModel.
+public record ProductSummary(Long id, String productName, String description, Double price, String image,
+        long version) {
+
+    public static ProductSummary from(ProductModel product) {
+        return new ProductSummary(product.getId(), product.getProductName(), product.getDescription(),
+                product.getPrice(), product.getImage(), product.getVersion());
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.product.Model;
+
+// A product's JSON, serialized once and cached until the product changes. The
+// version travels with the bytes so the ETag can be checked without parsing them.
+public record SerializedProduct(long version, byte[] json) {
+}
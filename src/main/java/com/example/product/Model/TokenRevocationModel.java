@@ -0,0 +1,38 @@
+package com.example.product.Model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// A revoked token (by its jti claim), or all tokens of a user issued up to createdAt.
+// Rows are loaded by every node at startup and picked up incrementally by createdAt.
+@Entity
+@Table(name = "token_revocation", indexes = {
+        @Index(name = "idx_token_revocation_created_at", columnList = "created_at"),
+        @Index(name = "idx_token_revocation_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenRevocationModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Set when a single token is revoked
+    @Column(length = 64)
+    private String tokenId;
+
+    // Set when every token of the user issued up to createdAt is revoked
+    private Long userId;
+
+    // Epoch milliseconds
+    @Column(nullable = false)
+    private long createdAt;
+
+    // Epoch milliseconds after which no token affected by the row is still valid
+    @Column(nullable = false)
+    private long expiresAt;
+}
@@ -0,0 +1,25 @@
+package com.example.product.Model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Keyset position in a user listing filtered by last name or email prefix: that column's
+// value and the id of the last user of a page, sent to clients as an opaque URL-safe token
+public record UserCursor(String value, long id) {
+
+    public String encode() {
+        String raw = value + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The id follows the last comma, so values containing commas still decode
+    public static UserCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(',');
+            return new UserCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.product.Model;
 
+import java.time.Instant;
 import java.util.List;
 
+import org.hibernate.annotations.SQLRestriction;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
@@ -15,6 +18,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 
 @Entity
+// Serves GET /users filtered by last name prefix, in (last name, id) keyset order
+@Table(indexes = @Index(name = "idx_user_last_name_id", columnList = "last_name, id"))
+// Soft-deleted users are invisible to every query until UserPurgeService removes them
+@SQLRestriction("deleted_at is null")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,7 +29,10 @@ import lombok.Builder;
 @Builder
 public class UserModel {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = IdAllocation.TABLE, pkColumnName = IdAllocation.ENTITY_COLUMN,
+            valueColumnName = IdAllocation.NEXT_VALUE_COLUMN, pkColumnValue = IdAllocation.USER,
+            allocationSize = IdAllocation.ALLOCATION_SIZE)
     private long id;
 
     @Column(nullable = false)
@@ -43,8 +53,12 @@ public class UserModel {
     @NotBlank(message = "Password cannot be null or empty")
     private String password;
 
+    // Products are removed by UserPurgeService in chunks, never by cascading from here
     @JsonIgnore
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "user")
     private List<ProductModel> products;
 
+    @JsonIgnore
+    private Instant deletedAt;
+
 }
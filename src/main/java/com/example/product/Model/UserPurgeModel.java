@@ -0,0 +1,37 @@
+package com.example.product.Model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Progress of removing a deleted user's products. The row is written together with the
+// soft delete and kept after the user row is gone, as a record of the finished purge.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserPurgeModel {
+
+    // Id of the deleted user
+    @Id
+    private long userId;
+
+    @Column(nullable = false)
+    private Instant requestedAt;
+
+    @Column(nullable = false)
+    private long productsDeleted;
+
+    // Null while products remain
+    private Instant completedAt;
+
+    // Instance working on the purge and until when its claim holds; another instance
+    // only takes the purge over once the claim has expired
+    @Column(length = 36)
+    private String claimedBy;
+
+    private Instant claimedUntil;
+}
@@ -0,0 +1,10 @@
+package com.example.product.Model;
+
+// Immutable view of a user without the password hash. This is what the users cache holds
+// and what the /user endpoints return.
+public record UserSnapshot(long id, String firstName, String lastName, String email) {
+
+    public static UserSnapshot from(UserModel user) {
+        return new UserSnapshot(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.product.Repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.product.Model.ProductChangePruneModel;
+
+import jakarta.persistence.LockModeType;
+
+public interface ProductChangePruneRepository extends JpaRepository<ProductChangePruneModel, Long> {
+
+    @Query("select p.prunedThrough from ProductChangePruneModel p where p.id = " + ProductChangePruneModel.ID)
+    Optional<Long> findPrunedThrough();
+
+    // Serializes instances pruning at the same time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from ProductChangePruneModel p where p.id = " + ProductChangePruneModel.ID)
+    Optional<ProductChangePruneModel> findForUpdate();
+}
@@ -0,0 +1,40 @@
+package com.example.product.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.product.Model.ProductChangeModel;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChangeModel, Long> {
+    List<ProductChangeModel> findByIdGreaterThanOrderByIdAsc(long after, Limit limit);
+
+    @Query("select max(c.id) from ProductChangeModel c")
+    Optional<Long> findLatestId();
+
+    @Query("select max(c.id) from ProductChangeModel c where c.changedAt < :cutoff")
+    Optional<Long> findLatestIdChangedBefore(@Param("cutoff") long cutoff);
+
+    // Locking read with NOWAIT: fails at once while a change with an id in the range is
+    // still being inserted, and otherwise returns the committed ones
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    @Query("select c from ProductChangeModel c where c.id between :from and :to")
+    List<ProductChangeModel> findLockedBetween(@Param("from") long from, @Param("to") long to);
+
+    @Modifying
+    @Query("delete from ProductChangeModel c where c.id <= :through")
+    int deleteThrough(@Param("through") long through);
+}
@@ -1,13 +1,86 @@
 package com.example.product.Repository;
 
 import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSummary;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface ProductRepository extends JpaRepository<ProductModel, Long> {
-    List<ProductModel> findByProductNameContainingIgnoreCase(String productName);
+public interface ProductRepository extends JpaRepository<ProductModel, Long>, ProductRepositoryCustom {
+    // The methods below take a projection type, e.g. ProductSummary, to select only those columns
+    <T> List<T> findByProductNameContainingIgnoreCase(String productName, Class<T> type);
+
+    <T> List<T> findAllByOrderByIdAsc(Class<T> type);
+
+    <T> List<T> findByIdIn(Collection<Long> ids, Class<T> type);
+
+    // Keyset pagination: next page of products after the given id
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit, Class<T> type);
+
+    // A user's products after the given id, served by the (user_id, id) index
+    @Query("select new com.example.product.Model.ProductSummary(p.id, p.productName, p.description, p.price, p.image,"
+            + " p.version)"
+            + " from ProductModel p where p.user.id = :userId and p.id > :after order by p.id")
+    List<ProductSummary> findOwnedSummaries(@Param("userId") Long userId, @Param("after") Long after, Limit limit);
+
+    // Next chunk of a user's product ids, read from the (user_id, id) index
+    @Query("select p.id from ProductModel p where p.user.id = :userId order by p.id")
+    List<Long> findIdsByOwner(@Param("userId") Long userId, Limit limit);
+
+    // Owner-scoped writes: the ownership check, and the If-Match version when one is
+    // given, are part of the statement, so no entity is loaded or locked first. Zero rows
+    // means the product is missing, owned by another user or at a different version.
+    @Transactional
+    @Modifying
+    @Query("update ProductModel p set p.productName = :productName, p.description = :description,"
+            + " p.price = :price, p.image = :image, p.version = p.version + 1"
+            + " where p.id = :id and p.user.id = :userId and (:version is null or p.version = :version)")
+    int updateOwnedProduct(@Param("id") Long id, @Param("userId") Long userId, @Param("version") Long version,
+            @Param("productName") String productName, @Param("description") String description,
+            @Param("price") Double price, @Param("image") String image);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProductModel p"
+            + " where p.id = :id and p.user.id = :userId and (:version is null or p.version = :version)")
+    int deleteOwnedProduct(@Param("id") Long id, @Param("userId") Long userId, @Param("version") Long version);
+
+    // Locks the products that still exist among the ids until the transaction ends, so a
+    // delete of them knows which rows it removed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p.id from ProductModel p where p.id in :ids")
+    List<Long> lockExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.user.id from ProductModel p where p.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    @Query("select p.version from ProductModel p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Streams the whole catalog in id order; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.product.Model.ProductSummary(p.id, p.productName, p.description, p.price, p.image,"
+            + " p.version)"
+            + " from ProductModel p order by p.id")
+    Stream<ProductSummary> streamAllSummaries();
 }
@@ -0,0 +1,17 @@
+package com.example.product.Repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+
+import com.example.product.Model.ProductCursor;
+import com.example.product.Model.ProductFilter;
+import com.example.product.Model.ProductSummary;
+
+// Queries built with the Criteria API, mixed into ProductRepository
+public interface ProductRepositoryCustom {
+
+    // One keyset page of the products matching the filter, in the filter's sort order,
+    // starting after the cursor (or from the start when it is null)
+    List<ProductSummary> findSummaries(ProductFilter filter, ProductCursor after, Limit limit);
+}
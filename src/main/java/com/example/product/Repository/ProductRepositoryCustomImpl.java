@@ -0,0 +1,59 @@
+package com.example.product.Repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+
+import com.example.product.Model.ProductCursor;
+import com.example.product.Model.ProductFilter;
+import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSort;
+import com.example.product.Model.ProductSummary;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    ProductRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<ProductSummary> findSummaries(ProductFilter filter, ProductCursor after, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> query = cb.createQuery(ProductSummary.class);
+        Root<ProductModel> product = query.from(ProductModel.class);
+
+        query.select(cb.construct(ProductSummary.class, product.get("id"), product.get("productName"),
+                product.get("description"), product.get("price"), product.get("image"), product.get("version")));
+
+        Predicate predicate = ProductSpecifications.matching(filter, after).toPredicate(product, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        // Sort column first, then id in the same direction, matching the composite indexes
+        ProductSort sort = filter.sort();
+        if (sort == ProductSort.ID) {
+            query.orderBy(cb.asc(product.get("id")));
+        } else {
+            query.orderBy(order(cb, product, sort.attribute(), sort.descending()),
+                    order(cb, product, "id", sort.descending()));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    private Order order(CriteriaBuilder cb, Root<ProductModel> product, String attribute, boolean descending) {
+        return descending ? cb.desc(product.get(attribute)) : cb.asc(product.get(attribute));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.product.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.product.Model.ProductCursor;
+import com.example.product.Model.ProductFilter;
+import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSort;
+
+import jakarta.persistence.criteria.Path;
+
+// Predicates for filtered product listings, combined by ProductRepositoryCustomImpl
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<ProductModel> matching(ProductFilter filter, ProductCursor after) {
+        List<Specification<ProductModel>> specifications = new ArrayList<>();
+        if (filter.minPrice() != null) {
+            specifications.add(priceAtLeast(filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            specifications.add(priceAtMost(filter.maxPrice()));
+        }
+        if (filter.ownerId() != null) {
+            specifications.add(ownedBy(filter.ownerId()));
+        }
+        if (after != null) {
+            specifications.add(after(filter.sort(), after));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    public static Specification<ProductModel> priceAtLeast(double minPrice) {
+        return (product, query, cb) -> cb.greaterThanOrEqualTo(product.get("price"), minPrice);
+    }
+
+    public static Specification<ProductModel> priceAtMost(double maxPrice) {
+        return (product, query, cb) -> cb.lessThanOrEqualTo(product.get("price"), maxPrice);
+    }
+
+    // Compares the foreign key column, the user row is not joined
+    public static Specification<ProductModel> ownedBy(long userId) {
+        return (product, query, cb) -> cb.equal(product.get("user").get("id"), userId);
+    }
+
+    // Rows strictly after the cursor in (sort value, id) order. The redundant bound on the
+    // sort column alone lets the database turn the condition into an index range scan.
+    public static Specification<ProductModel> after(ProductSort sort, ProductCursor cursor) {
+        return (product, query, cb) -> {
+            Path<Long> id = product.get("id");
+            if (sort == ProductSort.ID) {
+                return cb.greaterThan(id, cursor.id());
+            }
+            if (sort == ProductSort.PRICE || sort == ProductSort.PRICE_DESC) {
+                Path<Double> price = product.get("price");
+                double value = cursor.priceValue();
+                return sort.descending()
+                        ? cb.and(cb.lessThanOrEqualTo(price, value),
+                                cb.or(cb.lessThan(price, value), cb.lessThan(id, cursor.id())))
+                        : cb.and(cb.greaterThanOrEqualTo(price, value),
+                                cb.or(cb.greaterThan(price, value), cb.greaterThan(id, cursor.id())));
+            }
+            Path<String> name = product.get("productName");
+            String value = cursor.value();
+            return sort.descending()
+                    ? cb.and(cb.lessThanOrEqualTo(name, value),
+                            cb.or(cb.lessThan(name, value), cb.lessThan(id, cursor.id())))
+                    : cb.and(cb.greaterThanOrEqualTo(name, value),
+                            cb.or(cb.greaterThan(name, value), cb.greaterThan(id, cursor.id())));
+        };
+    }
+}
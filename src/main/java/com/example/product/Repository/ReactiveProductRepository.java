@@ -0,0 +1,37 @@
+package com.example.product.Repository;
+
+import java.util.Collection;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+
+import com.example.product.Model.ProductSummary;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking product reads over R2DBC for the reactive profile. Only the summary
+// columns are selected, mirroring the JPA projections in ProductRepository.
+public interface ReactiveProductRepository extends R2dbcRepository<ProductSummary, Long> {
+
+    @Query("SELECT id, product_name, description, price, image, version FROM product_model ORDER BY id")
+    Flux<ProductSummary> findAllSummaries();
+
+    @Query("SELECT id, product_name, description, price, image, version FROM product_model "
+            + "WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<ProductSummary> findSummaryPage(@Param("after") long after, @Param("limit") int limit);
+
+    @Query("SELECT id, product_name, description, price, image, version FROM product_model WHERE id = :id")
+    Mono<ProductSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("SELECT id, product_name, description, price, image, version FROM product_model WHERE id IN (:ids)")
+    Flux<ProductSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Scans the table; only used while the search index is being built at startup.
+    // Name matches first, then description-only matches.
+    @Query("SELECT id, product_name, description, price, image, version FROM product_model "
+            + "WHERE LOWER(product_name) LIKE :pattern OR LOWER(description) LIKE :pattern "
+            + "ORDER BY CASE WHEN LOWER(product_name) LIKE :pattern THEN 0 ELSE 1 END, id LIMIT :limit")
+    Flux<ProductSummary> searchSummaries(@Param("pattern") String pattern, @Param("limit") int limit);
+}
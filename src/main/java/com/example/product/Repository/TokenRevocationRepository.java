@@ -0,0 +1,22 @@
+package com.example.product.Repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.product.Model.TokenRevocationModel;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocationModel, Long> {
+    List<TokenRevocationModel> findByExpiresAtGreaterThan(long now);
+
+    List<TokenRevocationModel> findByCreatedAtGreaterThanEqual(long since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from TokenRevocationModel r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
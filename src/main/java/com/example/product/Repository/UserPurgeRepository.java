@@ -0,0 +1,41 @@
+package com.example.product.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.product.Model.UserPurgeModel;
+
+public interface UserPurgeRepository extends JpaRepository<UserPurgeModel, Long> {
+    List<UserPurgeModel> findByCompletedAtIsNullOrderByRequestedAtAsc();
+
+    // Claims an unfinished purge for the instance, or extends its own claim; 0 while
+    // another instance holds an unexpired claim. The update is the compare-and-set.
+    @Transactional
+    @Modifying
+    @Query("update UserPurgeModel p set p.claimedBy = :instance, p.claimedUntil = :until"
+            + " where p.userId = :userId and p.completedAt is null"
+            + " and (p.claimedBy = :instance or p.claimedUntil is null or p.claimedUntil < :now)")
+    int claim(@Param("userId") long userId, @Param("instance") String instance, @Param("now") Instant now,
+            @Param("until") Instant until);
+
+    // Counted only while the instance still holds the claim; 0 once it was taken over
+    @Transactional
+    @Modifying
+    @Query("update UserPurgeModel p set p.productsDeleted = p.productsDeleted + :count"
+            + " where p.userId = :userId and p.claimedBy = :instance")
+    int addDeletedProducts(@Param("userId") long userId, @Param("instance") String instance,
+            @Param("count") long count);
+
+    @Transactional
+    @Modifying
+    @Query("update UserPurgeModel p set p.completedAt = :completedAt, p.claimedUntil = null"
+            + " where p.userId = :userId and p.claimedBy = :instance")
+    int markCompleted(@Param("userId") long userId, @Param("instance") String instance,
+            @Param("completedAt") Instant completedAt);
+}
@@ -1,12 +1,88 @@
 package com.example.product.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.product.Model.UserModel;
+import com.example.product.Model.UserSnapshot;
+
+import jakarta.persistence.QueryHint;
 
 public interface UserRepository extends JpaRepository<UserModel, Long> {
     Optional<UserModel> findByEmail(String email);
 
+    // Projections that select only the requested columns, e.g. UserSnapshot without the password
+    <T> Optional<T> findById(long id, Class<T> type);
+
+    <T> Optional<T> findByEmail(String email, Class<T> type);
+
+    // Keyset pages of the public columns; the password and products are never selected.
+    // Prefixes are LIKE patterns escaped with '!' (see UserService.likePrefix).
+    @Query("select new com.example.product.Model.UserSnapshot(u.id, u.firstName, u.lastName, u.email)"
+            + " from UserModel u where u.id > :after order by u.id")
+    List<UserSnapshot> findSnapshots(@Param("after") long after, Limit limit);
+
+    // Last name prefix, read in (last name, id) order from the (last_name, id) index
+    @Query("select new com.example.product.Model.UserSnapshot(u.id, u.firstName, u.lastName, u.email)"
+            + " from UserModel u where u.lastName like :prefix escape '!'"
+            + " and (u.lastName > :afterValue or (u.lastName = :afterValue and u.id > :afterId))"
+            + " order by u.lastName, u.id")
+    List<UserSnapshot> findSnapshotsByLastNamePrefix(@Param("prefix") String prefix,
+            @Param("afterValue") String afterValue, @Param("afterId") long afterId, Limit limit);
+
+    // Email prefix, read in (email, id) order from the unique email index
+    @Query("select new com.example.product.Model.UserSnapshot(u.id, u.firstName, u.lastName, u.email)"
+            + " from UserModel u where u.email like :prefix escape '!'"
+            + " and (u.email > :afterValue or (u.email = :afterValue and u.id > :afterId))"
+            + " order by u.email, u.id")
+    List<UserSnapshot> findSnapshotsByEmailPrefix(@Param("prefix") String prefix,
+            @Param("afterValue") String afterValue, @Param("afterId") long afterId, Limit limit);
+
+    // Streams every user in id order; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.product.Model.UserSnapshot(u.id, u.firstName, u.lastName, u.email)"
+            + " from UserModel u order by u.id")
+    Stream<UserSnapshot> streamAllSnapshots();
+
+    // Emails that hold the unique key, soft-deleted users included. Native, because
+    // soft-deleted rows are hidden from JPQL.
+    @Query(value = "select id from user_model where email = :email", nativeQuery = true)
+    Optional<Long> findIdByEmailIncludingDeleted(@Param("email") String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select email from user_model", nativeQuery = true)
+    Stream<String> streamAllEmails();
+
+    // Updates only the password column, used when a hash is upgraded on login
+    @Transactional
+    @Modifying
+    @Query("update UserModel u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") long id, @Param("password") String password);
+
+    // Soft delete; returns 0 when the user does not exist or is already deleted
+    @Transactional
+    @Modifying
+    @Query("update UserModel u set u.deletedAt = :deletedAt where u.id = :id and u.deletedAt is null")
+    int markDeleted(@Param("id") long id, @Param("deletedAt") Instant deletedAt);
+
+    // Last step of a purge. Native, because soft-deleted rows are hidden from JPQL.
+    @Transactional
+    @Modifying
+    @Query(value = "delete from user_model where id = :id and deleted_at is not null", nativeQuery = true)
+    int deleteSoftDeleted(@Param("id") long id);
+
 }
@@ -1,72 +1,178 @@
 package com.example.product.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
-import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.github.cdimascio.dotenv.Dotenv;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.example.product.Model.UserModel;
-import com.example.product.Repository.UserRepository;
-
 @Service
 public class JwtService {
 
-    @Autowired
-    private UserRepository userRepository;
+    // Upper bound on the number of verified tokens kept in memory
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    public static final Duration TOKEN_VALIDITY = Duration.ofHours(10);
+
+    // Absent when JwtService is created outside Spring (unit tests, benchmarks)
+    @Autowired(required = false)
+    private TokenRevocationService tokenRevocationService;
+
     private final Dotenv dotenv = Dotenv.load();
     private final String SECRET_KEY = dotenv.get("SECRET_KEY");
     private final SecretKey secretKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
 
+    // The parser is thread-safe, so build it once instead of per call
+    private final JwtParser jwtParser = Jwts.parserBuilder()
+            .setSigningKey(secretKey)
+            .build();
+
+    // Verified claims keyed by the SHA-256 digest of the token, dropped at the token's
+    // expiry; when full, the least likely to be used again are evicted
+    private final Cache<String, Claims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TOKENS)
+            .expireAfter(new ExpireWithToken())
+            .build();
+
+    private final Timer verificationTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.verificationTimer = Timer.builder("jwt.verification")
+                .description("Time spent verifying JWT signatures")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder("jwt.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("jwt.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("jwt.cache.size", verifiedTokens, Cache::estimatedSize)
+                .description("Number of verified tokens in the cache")
+                .register(meterRegistry);
+    }
+
+    // The jti claim identifies the token so that it can be revoked on its own
     public String generateToken(String username, Long id) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .claim("id", id)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY.toMillis()))
                 .signWith(secretKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        Claims claims = Jwts.parserBuilder()
-                            .setSigningKey(secretKey.getEncoded())
-                            .build()
-                            .parseClaimsJws(token)
-                            .getBody();
-        return claims.getSubject();
-    }
+    // Returns the verified claims of the token, or null if it is invalid, expired or
+    // revoked. The signature is only checked the first time a token is seen; revocation
+    // is checked every time, in memory.
+    public Claims getVerifiedClaims(String token) {
+        if (token == null) {
+            return null;
+        }
 
-    public boolean validateToken(String token) {
+        String key = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (!isRevoked(cached)) {
+                cacheHits.increment();
+                return cached;
+            }
+            verifiedTokens.invalidate(key);
+            return null;
+        }
+
+        cacheMisses.increment();
+        Timer.Sample sample = Timer.start();
+        Claims claims;
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(secretKey.getEncoded())
-                .build()
-                .parseClaimsJws(token);
-            return true;
+            claims = jwtParser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
-            return false;
+            return null;
+        } finally {
+            sample.stop(verificationTimer);
+        }
+
+        if (isRevoked(claims)) {
+            return null;
         }
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(key, claims);
+        }
+        return claims;
+    }
+
+    public String extractUsername(String token) {
+        Claims claims = getVerifiedClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public boolean validateToken(String token) {
+        return getVerifiedClaims(token) != null;
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                            .setSigningKey(secretKey.getEncoded())
-                            .build()
-                            .parseClaimsJws(token)
-                            .getBody();
-        return claims.get("id", Long.class);
+        Claims claims = getVerifiedClaims(token);
+        return claims != null ? claims.get("id", Long.class) : null;
     }
 
-    public Optional<UserModel> getUserById(Long id) {
-        return userRepository.findById(id);
+    private boolean isRevoked(Claims claims) {
+        return tokenRevocationService != null && tokenRevocationService.isRevoked(claims);
+    }
+
+    // Expires each entry when its token does; reads and overwrites keep the same expiry
+    private static final class ExpireWithToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
 }
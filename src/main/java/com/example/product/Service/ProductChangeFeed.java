@@ -0,0 +1,364 @@
+package com.example.product.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.product.Model.ProductChangeModel;
+import com.example.product.Model.ProductChangePruneModel;
+import com.example.product.Model.ProductChangeType;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Repository.ProductChangePruneRepository;
+import com.example.product.Repository.ProductChangeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Transactional outbox of product changes and the feed that serves it. ProductService
+// records every create, update and delete in the transaction of the change; consumers
+// read the changes after their cursor, waiting for new ones through a long poll or a
+// server-sent event subscription. A single scheduled poll of the newest id serves all
+// waiting consumers, so idle consumers cost one query per interval in total. Event
+// streams are written on the delivery executor, one batch at a time per subscriber, so
+// a slow client never holds up the poll or the other consumers. Changes older than the
+// retention period are pruned; a consumer whose cursor falls below the pruned ids is
+// told to resync rather than silently skipping them.
+@Service
+public class ProductChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    private static final String INSERT_CHANGE =
+            "insert into product_change (product_id, type, version, changed_at, product) values (?, ?, ?, ?, ?)";
+
+    // Receives the changes after a subscriber's cursor; an IOException ends the subscription
+    public interface Listener {
+        void onChanges(List<ProductChangeModel> changes) throws IOException;
+    }
+
+    private record Waiter(long since, int limit, CompletableFuture<List<ProductChangeModel>> result) {
+    }
+
+    private static final class Subscriber {
+        private final int limit;
+        private final Listener listener;
+        private final Runnable onDropped;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long cursor;
+        // Set by the poll when it hands over a batch, cleared once the batch is written
+        private volatile boolean delivering;
+        private volatile long deliveryStartedAt;
+        private volatile boolean dropped;
+
+        private Subscriber(long cursor, int limit, Listener listener, Runnable onDropped) {
+            this.cursor = cursor;
+            this.limit = limit;
+            this.listener = listener;
+            this.onDropped = onDropped;
+        }
+    }
+
+    private record PageKey(long since, int limit) {
+    }
+
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductChangePruneRepository productChangePruneRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor deliveryExecutor;
+    private final long deliveryTimeoutNanos;
+    private final long retentionMillis;
+    private final int maxConsumers;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Id ranges confirmed to hold no change (rolled back), by first id
+    private final Cache<Long, Long> absentRanges = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    public ProductChangeFeed(ProductChangeRepository productChangeRepository,
+            ProductChangePruneRepository productChangePruneRepository, JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Qualifier("productChangeDeliveryExecutor") TaskExecutor deliveryExecutor,
+            @Value("${app.product-changes.delivery-timeout:10s}") Duration deliveryTimeout,
+            @Value("${app.product-changes.retention:7d}") Duration retention,
+            @Value("${app.product-changes.max-consumers:1000}") int maxConsumers) {
+        this.productChangeRepository = productChangeRepository;
+        this.productChangePruneRepository = productChangePruneRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.deliveryExecutor = deliveryExecutor;
+        this.deliveryTimeoutNanos = deliveryTimeout.toNanos();
+        this.retentionMillis = retention.toMillis();
+        this.maxConsumers = maxConsumers;
+        Gauge.builder("product.changes.consumers", this, ProductChangeFeed::consumers)
+                .description("Long polls and event streams waiting for product changes")
+                .register(meterRegistry);
+    }
+
+    public ProductChangeModel saved(ProductChangeType type, ProductSummary product) {
+        try {
+            return ProductChangeModel.builder()
+                    .productId(product.id())
+                    .type(type)
+                    .version(product.version())
+                    .product(objectMapper.writeValueAsString(product))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + product.id(), e);
+        }
+    }
+
+    // The product as it was after a create or update
+    public ProductSummary productOf(ProductChangeModel change) {
+        try {
+            return objectMapper.readValue(change.getProduct(), ProductSummary.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read product change " + change.getId(), e);
+        }
+    }
+
+    public ProductChangeModel deleted(Long productId) {
+        return ProductChangeModel.builder().productId(productId).type(ProductChangeType.DELETED).build();
+    }
+
+    // Inserts the changes as one JDBC batch in the caller's transaction, so they commit
+    // or roll back with the product rows. Hibernate cannot batch inserts of IDENTITY ids.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<ProductChangeModel> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, changes, changes.size(), (statement, change) -> {
+            statement.setLong(1, change.getProductId());
+            statement.setString(2, change.getType().name());
+            statement.setObject(3, change.getVersion());
+            statement.setLong(4, now);
+            statement.setString(5, change.getProduct());
+        });
+    }
+
+    // The cursor of the newest change; a consumer starting from it sees only later changes
+    public long currentCursor() {
+        return productChangeRepository.findLatestId().orElse(0L);
+    }
+
+    // True when changes after the cursor have been pruned, so the consumer has to resync
+    // from the current state and continue from currentCursor()
+    public boolean isPruned(long since) {
+        return since < prunedThrough();
+    }
+
+    private long prunedThrough() {
+        return productChangePruneRepository.findPrunedThrough().orElse(0L);
+    }
+
+    // Up to `limit` changes after the cursor, oldest first. Ids are taken when a change
+    // is written but become visible when it commits, so a later id can be read before an
+    // earlier one. The page therefore ends before missing ids until they are confirmed
+    // absent, i.e. their transactions rolled back. Pruned ids are never skipped: a page
+    // ends before them, and isPruned tells the consumer to resync.
+    public List<ProductChangeModel> getChanges(long since, int limit) {
+        List<ProductChangeModel> changes = productChangeRepository.findByIdGreaterThanOrderByIdAsc(since,
+                Limit.of(limit));
+        long expected = since + 1;
+        for (int i = 0; i < changes.size(); i++) {
+            long id = changes.get(i).getId();
+            if (id != expected && !isAbsent(expected, id - 1)) {
+                return changes.subList(0, i);
+            }
+            expected = id + 1;
+        }
+        return changes;
+    }
+
+    // A locking read of the range fails while one of its ids is still being inserted and
+    // finds the changes that committed after the page was read; either way the range is
+    // read again on the next poll. An empty result is final, ids are never reused, unless
+    // the range was emptied by pruning.
+    private boolean isAbsent(long from, long to) {
+        Long knownTo = absentRanges.getIfPresent(from);
+        if (knownTo != null && knownTo >= to) {
+            return true;
+        }
+        if (from <= prunedThrough()) {
+            return false;
+        }
+        try {
+            if (!productChangeRepository.findLockedBetween(from, to).isEmpty()) {
+                return false;
+            }
+        } catch (PessimisticLockingFailureException e) {
+            return false;
+        }
+        absentRanges.put(from, to);
+        return true;
+    }
+
+    // Completes with the changes after the cursor as soon as there are any, or with an
+    // empty list after the timeout; null when too many consumers are already waiting
+    public CompletableFuture<List<ProductChangeModel>> awaitChanges(long since, int limit, Duration timeout) {
+        List<ProductChangeModel> changes = getChanges(since, limit);
+        if (!changes.isEmpty()) {
+            return CompletableFuture.completedFuture(changes);
+        }
+        if (consumers() >= maxConsumers) {
+            return null;
+        }
+        Waiter waiter = new Waiter(since, limit, new CompletableFuture<>());
+        waiters.add(waiter);
+        waiter.result().completeOnTimeout(List.of(), timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> waiters.remove(waiter));
+        return waiter.result();
+    }
+
+    // Delivers every change after the cursor to the listener, starting with the next poll.
+    // A subscriber still writing a batch after delivery-timeout is dropped and onDropped
+    // runs once its write returns. Returns the action that ends the subscription, or null
+    // when too many are open.
+    public Runnable subscribe(long since, int limit, Listener listener, Runnable onDropped) {
+        if (consumers() >= maxConsumers) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(since, limit, listener, onDropped);
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    @Scheduled(fixedDelayString = "${app.product-changes.poll-interval:500ms}")
+    public void dispatch() {
+        if (waiters.isEmpty() && subscribers.isEmpty()) {
+            return;
+        }
+        long latest = currentCursor();
+
+        // Consumers at the same cursor share one query per poll
+        Map<PageKey, List<ProductChangeModel>> pages = new HashMap<>();
+        for (Waiter waiter : new ArrayList<>(waiters)) {
+            if (waiter.since() < latest) {
+                List<ProductChangeModel> changes = pages.computeIfAbsent(new PageKey(waiter.since(), waiter.limit()),
+                        key -> getChanges(key.since(), key.limit()));
+                if (!changes.isEmpty()) {
+                    waiter.result().complete(changes);
+                }
+            }
+        }
+        long now = System.nanoTime();
+        for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+            // A subscriber still writing its previous batch is skipped, and dropped once it stalls
+            if (subscriber.delivering) {
+                if (now - subscriber.deliveryStartedAt > deliveryTimeoutNanos) {
+                    drop(subscriber);
+                }
+            } else if (subscriber.cursor < latest) {
+                List<ProductChangeModel> changes = pages.computeIfAbsent(
+                        new PageKey(subscriber.cursor, subscriber.limit), key -> getChanges(key.since(), key.limit()));
+                // A stream held up by pruned changes is closed; it reconnects and is told to resync
+                if (changes.isEmpty() && isPruned(subscriber.cursor)) {
+                    drop(subscriber);
+                } else {
+                    deliver(subscriber, changes, now);
+                }
+            }
+        }
+    }
+
+    // Deletes the changes up to the newest one older than the retention period and raises
+    // the pruned watermark to it in the same transaction
+    @Scheduled(initialDelayString = "${app.product-changes.prune-interval:1h}",
+            fixedDelayString = "${app.product-changes.prune-interval:1h}")
+    @Transactional
+    public void pruneExpiredChanges() {
+        ProductChangePruneModel watermark = productChangePruneRepository.findForUpdate()
+                .orElseGet(() -> new ProductChangePruneModel(ProductChangePruneModel.ID, 0L));
+        long through = productChangeRepository
+                .findLatestIdChangedBefore(System.currentTimeMillis() - retentionMillis)
+                .orElse(0L);
+        if (through <= watermark.getPrunedThrough()) {
+            return;
+        }
+
+        int pruned = productChangeRepository.deleteThrough(through);
+        watermark.setPrunedThrough(through);
+        productChangePruneRepository.save(watermark);
+        log.info("Pruned {} product changes older than the retention period, through id {}", pruned, through);
+    }
+
+    public int consumers() {
+        return waiters.size() + subscribers.size();
+    }
+
+    private void deliver(Subscriber subscriber, List<ProductChangeModel> changes, long now) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        subscriber.deliveryStartedAt = now;
+        subscriber.delivering = true;
+        try {
+            deliveryExecutor.execute(() -> write(subscriber, changes));
+        } catch (TaskRejectedException e) {
+            subscriber.delivering = false;
+            drop(subscriber);
+        }
+    }
+
+    // Runs on the delivery executor
+    private void write(Subscriber subscriber, List<ProductChangeModel> changes) {
+        try {
+            if (!subscriber.dropped) {
+                subscriber.listener.onChanges(changes);
+                subscriber.cursor = changes.get(changes.size() - 1).getId();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Product change subscription closed", e);
+            subscribers.remove(subscriber);
+        } finally {
+            subscriber.delivering = false;
+        }
+        if (subscriber.dropped) {
+            close(subscriber);
+        }
+    }
+
+    // Ends a subscription that cannot keep up; an event stream client reconnects and
+    // resumes after the last event it received
+    private void drop(Subscriber subscriber) {
+        log.debug("Dropping a product change subscriber that fell behind");
+        subscribers.remove(subscriber);
+        subscriber.dropped = true;
+        if (!subscriber.delivering) {
+            close(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscriber.onDropped.run();
+        }
+    }
+}
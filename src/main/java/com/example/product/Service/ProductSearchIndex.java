@@ -0,0 +1,322 @@
+package com.example.product.Service;
+
+import com.example.product.Model.ProductChangeModel;
+import com.example.product.Model.ProductChangeType;
+import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Repository.ProductRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// In-memory inverted index of product names and descriptions.
+// Text is split into 2- and 3-character grams so that any substring of length >= 2
+// can be looked up without scanning the products table. Nodes that write products keep
+// it current as they commit; read-only nodes (the reactive profile) set follow-changes
+// to apply the product change feed instead.
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // Shorter terms have no gram to look up and would have to scan every document
+    public static final int MIN_QUERY_LENGTH = 2;
+
+    private static final int MIN_GRAM = 2;
+    private static final int MAX_GRAM = 3;
+
+    private static final int FOLLOW_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductChangeFeed productChangeFeed;
+    private final boolean followChanges;
+
+    // The indexed documents, replaced as a whole when the index is rebuilt
+    private volatile Contents contents = new Contents();
+
+    // Writes made while a rebuild reads the catalog, replayed onto the rebuilt contents
+    // before they are swapped in; a null text is a removal. Null when no rebuild is running.
+    private Map<Long, IndexedText> writesDuringRebuild;
+
+    // Serializes writers; a lock rather than synchronized so virtual threads are not pinned
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile boolean ready = false;
+
+    private record IndexedText(String name, String description) {
+    }
+
+    private static final class Contents {
+        // gram -> ids of the products whose name or description contain it
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+        // id -> normalized text that was indexed, used for ranking and removal
+        private final Map<Long, IndexedText> documents = new ConcurrentHashMap<>();
+    }
+
+    public ProductSearchIndex(ProductRepository productRepository, ProductChangeFeed productChangeFeed,
+            @Value("${app.product-search.follow-changes:false}") boolean followChanges) {
+        this.productRepository = productRepository;
+        this.productChangeFeed = productChangeFeed;
+        this.followChanges = followChanges;
+    }
+
+    // Builds the index from the database once the application has started.
+    // Until it is ready, searches fall back to the database query. Products written or
+    // deleted while the catalog is read are replayed afterwards, so a row read just
+    // before its deletion is not brought back.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        // Changes after this cursor are applied on top of the catalog read below; the
+        // ones it already contains are applied again, which leaves the index unchanged
+        long followFrom = followChanges ? productChangeFeed.currentCursor() : 0;
+
+        writeLock.lock();
+        try {
+            writesDuringRebuild = new HashMap<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Contents rebuilt = new Contents();
+        try (Stream<ProductSummary> products = productRepository.streamAllSummaries()) {
+            products.forEach(product -> addDocument(rebuilt, product.id(),
+                    new IndexedText(normalize(product.productName()), normalize(product.description()))));
+        } catch (RuntimeException e) {
+            writeLock.lock();
+            try {
+                writesDuringRebuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+
+        writeLock.lock();
+        try {
+            writesDuringRebuild.forEach((productId, text) -> {
+                if (text == null) {
+                    removeDocument(rebuilt, productId);
+                } else {
+                    addDocument(rebuilt, productId, text);
+                }
+            });
+            writesDuringRebuild = null;
+            contents = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+        ready = true;
+
+        if (followChanges) {
+            follow(followFrom);
+        }
+    }
+
+    // Subscribes to the change feed after the cursor. A subscription dropped for falling
+    // behind resumes from the last change applied.
+    private void follow(long since) {
+        if (productChangeFeed.isPruned(since)) {
+            log.warn("Product changes the search index has not applied were pruned; it no longer follows them");
+            return;
+        }
+        AtomicLong applied = new AtomicLong(since);
+        Runnable unsubscribe = productChangeFeed.subscribe(since, FOLLOW_BATCH_SIZE, changes -> {
+            changes.forEach(this::apply);
+            applied.set(changes.get(changes.size() - 1).getId());
+        }, () -> follow(applied.get()));
+        if (unsubscribe == null) {
+            log.warn("Product change feed is full; the search index no longer follows product changes");
+        }
+    }
+
+    private void apply(ProductChangeModel change) {
+        if (change.getType() == ProductChangeType.DELETED) {
+            remove(change.getProductId());
+            return;
+        }
+        try {
+            ProductSummary product = productChangeFeed.productOf(change);
+            index(product.id(), product.productName(), product.description());
+        } catch (RuntimeException e) {
+            log.warn("Could not index product change {}", change.getId(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(ProductModel product) {
+        if (product != null) {
+            index(product.getId(), product.getProductName(), product.getDescription());
+        }
+    }
+
+    public void index(Long productId, String productName, String description) {
+        if (productId == null) {
+            return;
+        }
+        IndexedText text = new IndexedText(normalize(productName), normalize(description));
+        writeLock.lock();
+        try {
+            addDocument(contents, productId, text);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(productId, text);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        writeLock.lock();
+        try {
+            removeDocument(contents, productId);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(productId, null);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void addDocument(Contents target, Long productId, IndexedText text) {
+        removeDocument(target, productId);
+        target.documents.put(productId, text);
+        for (String gram : grams(text)) {
+            target.postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(productId);
+        }
+    }
+
+    private void removeDocument(Contents target, Long productId) {
+        IndexedText text = target.documents.remove(productId);
+        if (text == null) {
+            return;
+        }
+        for (String gram : grams(text)) {
+            Set<Long> ids = target.postings.get(gram);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty()) {
+                    target.postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    // Returns the ids of the best matching products, best match first; none for terms
+    // shorter than MIN_QUERY_LENGTH
+    public List<Long> search(String query, int limit) {
+        String term = normalize(query);
+        if (term.length() < MIN_QUERY_LENGTH) {
+            return List.of();
+        }
+
+        Contents searched = contents;
+        Collection<Long> candidates = candidatesFor(searched, term);
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Long id : candidates) {
+            IndexedText text = searched.documents.get(id);
+            int score = text == null ? 0 : score(text, term);
+            // Grams can match without the full term being present, so zero scores are dropped
+            if (score > 0) {
+                scores.put(id, score);
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // Intersects the posting lists of the term's grams, starting with the smallest
+    private Collection<Long> candidatesFor(Contents searched, String term) {
+        int size = Math.min(MAX_GRAM, term.length());
+        List<Set<Long>> lists = new ArrayList<>();
+        for (int i = 0; i + size <= term.length(); i++) {
+            Set<Long> ids = searched.postings.get(term.substring(i, i + size));
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> result = new ArrayList<>();
+        for (Long id : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(id);
+            }
+            if (inAll) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    // Exact name match ranks first, then name prefix, word prefix, anywhere in the name,
+    // and finally matches only in the description
+    private int score(IndexedText text, String term) {
+        int score = 0;
+        if (text.name().equals(term)) {
+            score += 100;
+        } else if (text.name().startsWith(term)) {
+            score += 50;
+        } else if (text.name().contains(" " + term)) {
+            score += 30;
+        } else if (text.name().contains(term)) {
+            score += 20;
+        }
+        if (text.description().contains(term)) {
+            score += 5;
+        }
+        return score;
+    }
+
+    private Set<String> grams(IndexedText text) {
+        Set<String> grams = new HashSet<>();
+        addGrams(text.name(), grams);
+        addGrams(text.description(), grams);
+        return grams;
+    }
+
+    private void addGrams(String value, Set<String> grams) {
+        for (int size = MIN_GRAM; size <= MAX_GRAM; size++) {
+            for (int i = 0; i + size <= value.length(); i++) {
+                grams.add(value.substring(i, i + size));
+            }
+        }
+    }
+
+    private String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
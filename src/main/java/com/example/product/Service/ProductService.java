@@ -1,52 +1,353 @@
 package com.example.product.Service;
 
+import com.example.product.Model.OwnedProductUpdate;
+import com.example.product.Model.OwnedWriteResult;
+import com.example.product.Model.PageResponse;
+import com.example.product.Model.ProductChangeModel;
+import com.example.product.Model.ProductChangeType;
+import com.example.product.Model.ProductCursor;
+import com.example.product.Model.ProductFilter;
 import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Model.SerializedProduct;
 import com.example.product.Repository.ProductRepository;
+import com.example.product.config.cacheConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    // Matches spring.jpa.properties.hibernate.jdbc.batch_size
+    private static final int JDBC_BATCH_SIZE = 50;
+
     private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final ProductChangeFeed productChangeFeed;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, EntityManager entityManager,
+            ProductSearchIndex productSearchIndex, CacheManager cacheManager, ObjectMapper objectMapper,
+            ProductChangeFeed productChangeFeed) {
         this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.productSearchIndex = productSearchIndex;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.productChangeFeed = productChangeFeed;
+    }
+
+    // The read-only listings below may be served by a read replica (readReplicaConfig);
+    // single products are read from the primary so the products cache never holds a stale row
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getAllProducts() {
+        return productRepository.findAllByOrderByIdAsc(ProductSummary.class);
+    }
+
+    // Returns at most `limit` products with an id greater than `after`, ordered by id
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProductsPage(Long after, Integer limit) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after,
+                Limit.of(PageResponse.resolvePageSize(limit)), ProductSummary.class);
+    }
+
+    // A keyset page of the products matching the filter, continuing after the cursor
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getFilteredProductsPage(ProductFilter filter, ProductCursor after, Integer limit) {
+        return productRepository.findSummaries(filter, after, Limit.of(PageResponse.resolvePageSize(limit)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProductsByOwner(Long userId, Long after, Integer limit) {
+        return productRepository.findOwnedSummaries(userId, after == null ? 0L : after,
+                Limit.of(PageResponse.resolvePageSize(limit)));
     }
 
-    public List<ProductModel> getAllProducts() {
-        return productRepository.findAll();
+    // Hands every product to the consumer one at a time. Summaries are not managed
+    // entities, so the persistence context does not grow with the catalog.
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<ProductSummary> consumer) {
+        try (Stream<ProductSummary> products = productRepository.streamAllSummaries()) {
+            products.forEach(consumer);
+        }
     }
 
+    // Every write below records its change in the outbox within the same transaction.
+    // Updates go through updateOwnedProduct and updateOwnedProducts.
+    @Transactional
     public ProductModel createProduct(ProductModel productModel) {
-        return productRepository.save(productModel);
+        ProductModel savedProduct = productRepository.saveAndFlush(productModel);
+        productChangeFeed.record(List.of(productChangeFeed.saved(ProductChangeType.CREATED,
+                ProductSummary.from(savedProduct))));
+        afterCommit(() -> productSearchIndex.index(savedProduct));
+        return savedProduct;
     }
 
     public Optional<ProductModel> getProductById(Long id) {
         return productRepository.findById(id);
     }
 
+    // The product's JSON, cached under its id so every eviction of the products cache
+    // also drops the serialized bytes; hits cost neither a query nor serialization
+    @Cacheable(cacheNames = cacheConfig.PRODUCTS_CACHE, key = "#id", unless = "#result == null")
+    public Optional<SerializedProduct> getSerializedProduct(Long id) {
+        return productRepository.findById(id).map(this::serialize);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.PRODUCTS_CACHE, key = "#result.id")
     public ProductModel updateProduct(ProductModel productModel) {
-        return productRepository.save(productModel);
+        ProductModel savedProduct = productRepository.saveAndFlush(productModel);
+        productChangeFeed.record(List.of(productChangeFeed.saved(ProductChangeType.UPDATED,
+                ProductSummary.from(savedProduct))));
+        afterCommit(() -> productSearchIndex.index(savedProduct));
+        return savedProduct;
+    }
+
+    // False when there was no such product
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.PRODUCTS_CACHE, key = "#productId")
+    public boolean deleteProduct(Long productId) {
+        return deleteProducts(List.of(productId)) > 0;
+    }
+
+    // Updates the product only if it belongs to the user and, when expectedVersion is
+    // given, is still at that version; one UPDATE statement, no row lock held beforehand.
+    // The version is resolved in this transaction, so it is the one this update wrote.
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.PRODUCTS_CACHE, key = "#productId")
+    public OwnedProductUpdate updateOwnedProduct(Long productId, Long userId, Long expectedVersion,
+            ProductModel changes) {
+        int updated = productRepository.updateOwnedProduct(productId, userId, expectedVersion,
+                changes.getProductName(), changes.getDescription(), changes.getPrice(), changes.getImage());
+        if (updated == 0) {
+            return OwnedProductUpdate.failed(ownershipFailure(productId, userId));
+        }
+        // The row is locked by the update, so the version read back is the one it wrote
+        long version = expectedVersion != null
+                ? expectedVersion + 1
+                : productRepository.findVersionById(productId).orElse(0L);
+        ProductSummary product = new ProductSummary(productId, changes.getProductName(), changes.getDescription(),
+                changes.getPrice(), changes.getImage(), version);
+        productChangeFeed.record(List.of(productChangeFeed.saved(ProductChangeType.UPDATED, product)));
+        afterCommit(() -> productSearchIndex.index(productId, changes.getProductName(), changes.getDescription()));
+        return OwnedProductUpdate.applied(product);
+    }
+
+    // Deletes the product only if it belongs to the user (and matches expectedVersion)
+    @Transactional
+    @CacheEvict(cacheNames = cacheConfig.PRODUCTS_CACHE, key = "#productId")
+    public OwnedWriteResult deleteOwnedProduct(Long productId, Long userId, Long expectedVersion) {
+        int deleted = productRepository.deleteOwnedProduct(productId, userId, expectedVersion);
+        if (deleted == 0) {
+            return ownershipFailure(productId, userId);
+        }
+        productChangeFeed.record(List.of(productChangeFeed.deleted(productId)));
+        afterCommit(() -> productSearchIndex.remove(productId));
+        return OwnedWriteResult.APPLIED;
+    }
+
+    // Only reached when no row matched; a primary-key probe tells 404, 403 and 412 apart
+    private OwnedWriteResult ownershipFailure(Long productId, Long userId) {
+        Optional<Long> ownerId = productRepository.findOwnerIdById(productId);
+        if (ownerId.isEmpty()) {
+            return OwnedWriteResult.NOT_FOUND;
+        }
+        // The owner matched, so it was the expected version that did not
+        return ownerId.get().equals(userId) ? OwnedWriteResult.VERSION_MISMATCH : OwnedWriteResult.NOT_OWNER;
+    }
+
+    // Returns the products with the given ids, keyed by id, in a single query
+    public Map<Long, ProductModel> getProductsByIds(Collection<Long> ids) {
+        Map<Long, ProductModel> productsById = new HashMap<>();
+        productRepository.findAllById(ids).forEach(product -> productsById.put(product.getId(), product));
+        return productsById;
+    }
+
+    // Inserts all products in one transaction. Hibernate groups the statements into
+    // JDBC batches; the persistence context is flushed and cleared every
+    // JDBC_BATCH_SIZE rows so it does not grow with the batch.
+    @Transactional
+    public List<ProductModel> saveProducts(List<ProductModel> products) {
+        for (int i = 0; i < products.size(); i++) {
+            entityManager.persist(products.get(i));
+            if ((i + 1) % JDBC_BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+
+        // Versions are final once flushed, so the outbox rows carry the committed state
+        productChangeFeed.record(products.stream()
+                .map(product -> productChangeFeed.saved(ProductChangeType.CREATED, ProductSummary.from(product)))
+                .toList());
+
+        afterCommit(() -> products.forEach(product -> {
+            evictFromCache(product.getId());
+            productSearchIndex.index(product);
+        }));
+        return products;
+    }
+
+    // Copies each item's fields onto the stored product when it belongs to the user; the
+    // outcome for products[i] is element i of the result. Rows are loaded and changed in
+    // this transaction JDBC_BATCH_SIZE at a time, so each slice is flushed as batched
+    // UPDATEs of managed entities and the persistence context is cleared between slices.
+    @Transactional
+    public List<OwnedWriteResult> updateOwnedProducts(Long userId, List<ProductModel> products) {
+        List<OwnedWriteResult> results = new ArrayList<>(products.size());
+        List<ProductModel> updatedProducts = new ArrayList<>();
+        List<ProductChangeModel> changes = new ArrayList<>();
+        for (int from = 0; from < products.size(); from += JDBC_BATCH_SIZE) {
+            List<ProductModel> slice = products.subList(from, Math.min(from + JDBC_BATCH_SIZE, products.size()));
+            Map<Long, ProductModel> storedProducts = getProductsByIds(slice.stream().map(ProductModel::getId).toList());
+
+            // Keyed by id, so a product listed twice is written and recorded once
+            Map<Long, ProductModel> updatedInSlice = new LinkedHashMap<>();
+            for (ProductModel product : slice) {
+                ProductModel storedProduct = storedProducts.get(product.getId());
+                if (storedProduct == null) {
+                    results.add(OwnedWriteResult.NOT_FOUND);
+                } else if (!userId.equals(storedProduct.getUser().getId())) {
+                    results.add(OwnedWriteResult.NOT_OWNER);
+                } else {
+                    storedProduct.setProductName(product.getProductName());
+                    storedProduct.setDescription(product.getDescription());
+                    storedProduct.setPrice(product.getPrice());
+                    storedProduct.setImage(product.getImage());
+                    updatedInSlice.put(storedProduct.getId(), storedProduct);
+                    results.add(OwnedWriteResult.APPLIED);
+                }
+            }
+            entityManager.flush();
+
+            // Versions are final once flushed, so the outbox rows carry the committed state
+            for (ProductModel product : updatedInSlice.values()) {
+                changes.add(productChangeFeed.saved(ProductChangeType.UPDATED, ProductSummary.from(product)));
+                updatedProducts.add(product);
+            }
+            entityManager.clear();
+        }
+        productChangeFeed.record(changes);
+
+        afterCommit(() -> updatedProducts.forEach(product -> {
+            evictFromCache(product.getId());
+            productSearchIndex.index(product);
+        }));
+        return results;
+    }
+
+    // Deletes the products with the given ids in a single statement and returns how many
+    // existed. Only those are recorded as deleted; rows are locked first so that a
+    // concurrent delete of the same ids cannot record them twice.
+    @Transactional
+    public int deleteProducts(Collection<Long> productIds) {
+        List<Long> existingIds = productRepository.lockExistingIds(productIds);
+        if (existingIds.isEmpty()) {
+            return 0;
+        }
+        productRepository.deleteAllByIdInBatch(existingIds);
+        productChangeFeed.record(existingIds.stream().map(productChangeFeed::deleted).toList());
+
+        afterCommit(() -> existingIds.forEach(productId -> {
+            evictFromCache(productId);
+            productSearchIndex.remove(productId);
+        }));
+        return existingIds.size();
     }
 
-    public void deleteProduct(Long productId) {
-        productRepository.deleteById(productId);
+    @Transactional(readOnly = true)
+    public List<ProductSummary> searchProductsByName(String productName) {
+        return searchProductsByName(productName, null);
     }
 
-    public List<ProductModel> searchProductsByName(String productName) {
-        // Log the search term
-        System.out.println("Searching for products with name containing: " + productName);
-    
-        List<ProductModel> products = productRepository.findByProductNameContainingIgnoreCase(productName);
-    
-        // Log the result
-        System.out.println("Found " + products.size() + " products.");
-        
+    @Transactional(readOnly = true)
+    public List<ProductSummary> searchProductsByName(String productName, Integer limit) {
+        log.debug("Searching for products with name containing: {}", productName);
+
+        int resultLimit = PageResponse.resolvePageSize(limit);
+        List<ProductSummary> products;
+
+        if (productSearchIndex.isReady()) {
+            // Ranked ids from the in-memory index, then a single primary-key lookup
+            List<Long> ids = productSearchIndex.search(productName, resultLimit);
+            Map<Long, ProductSummary> productsById = new HashMap<>();
+            productRepository.findByIdIn(ids, ProductSummary.class)
+                    .forEach(product -> productsById.put(product.id(), product));
+            products = ids.stream().map(productsById::get).filter(Objects::nonNull).toList();
+        } else {
+            // Index is still being built at startup
+            products = productRepository.findByProductNameContainingIgnoreCase(productName, ProductSummary.class)
+                    .stream()
+                    .limit(resultLimit)
+                    .toList();
+        }
+
+        log.debug("Found {} products.", products.size());
+
         return products;
     }
-    
+
+    private SerializedProduct serialize(ProductModel product) {
+        try {
+            return new SerializedProduct(product.getVersion(), objectMapper.writeValueAsBytes(product));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + product.getId(), e);
+        }
+    }
+
+    private void evictFromCache(Long productId) {
+        Cache cache = cacheManager.getCache(cacheConfig.PRODUCTS_CACHE);
+        if (cache != null) {
+            cache.evict(productId);
+        }
+    }
+
+    // Runs the action once the current transaction has committed, so the cache and
+    // search index never see rows that were rolled back
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
 }
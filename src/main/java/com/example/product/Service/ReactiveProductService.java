@@ -0,0 +1,72 @@
+package com.example.product.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import com.example.product.Model.PageResponse;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Repository.ReactiveProductRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Read side of the product API for the reactive profile
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductService {
+
+    private final ReactiveProductRepository reactiveProductRepository;
+    private final ProductSearchIndex productSearchIndex;
+
+    public ReactiveProductService(ReactiveProductRepository reactiveProductRepository,
+            ProductSearchIndex productSearchIndex) {
+        this.reactiveProductRepository = reactiveProductRepository;
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    public Flux<ProductSummary> getAllProducts() {
+        return reactiveProductRepository.findAllSummaries();
+    }
+
+    // Same keyset pagination as ProductService.getProductsPage
+    public Flux<ProductSummary> getProductsPage(Long after, Integer limit) {
+        return reactiveProductRepository.findSummaryPage(after == null ? 0 : after,
+                PageResponse.resolvePageSize(limit));
+    }
+
+    public Mono<ProductSummary> getProductById(Long id) {
+        return reactiveProductRepository.findSummaryById(id);
+    }
+
+    // Same as ProductService.searchProductsByName: ranked ids from the in-memory index,
+    // then a single primary-key lookup
+    public Flux<ProductSummary> searchProductsByName(String productName, Integer limit) {
+        int resultLimit = PageResponse.resolvePageSize(limit);
+        if (!productSearchIndex.isReady()) {
+            // Index is still being built at startup
+            String pattern = "%" + escapeLike(productName.trim().toLowerCase(Locale.ROOT)) + "%";
+            return reactiveProductRepository.searchSummaries(pattern, resultLimit);
+        }
+
+        List<Long> ids = productSearchIndex.search(productName, resultLimit);
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return reactiveProductRepository.findSummariesByIdIn(ids)
+                .collectMap(ProductSummary::id)
+                .flatMapIterable(productsById -> ranked(ids, productsById));
+    }
+
+    private static List<ProductSummary> ranked(List<Long> ids, Map<Long, ProductSummary> productsById) {
+        return ids.stream().map(productsById::get).filter(Objects::nonNull).toList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.product.Service;
+
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.product.Repository.UserRepository;
+
+// Bloom filter of the emails that hold the unique key of user_model, so registration
+// can skip the duplicate lookup for an email this node has never seen. A positive is
+// only a hint and is confirmed against the table; emails registered on other nodes are
+// caught by the unique constraint. Emails are lower-cased to match the column collation.
+@Component
+public class RegisteredEmailFilter {
+
+    private final UserRepository userRepository;
+    private final long expectedEmails;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter emails;
+    private volatile boolean ready = false;
+
+    public RegisteredEmailFilter(UserRepository userRepository,
+            @Value("${app.user-registration.expected-emails:1000000}") long expectedEmails,
+            @Value("${app.user-registration.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedEmails = expectedEmails;
+        this.falsePositiveRate = falsePositiveRate;
+        this.emails = new BloomFilter(expectedEmails, falsePositiveRate);
+    }
+
+    // Warms the filter from the table once the application has started. The new filter
+    // is installed first so registrations made meanwhile are added to it; until it is
+    // ready every email counts as possibly registered.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warm() {
+        BloomFilter warmed = new BloomFilter(Math.max(expectedEmails, 2 * userRepository.count()),
+                falsePositiveRate);
+        emails = warmed;
+        try (Stream<String> registered = userRepository.streamAllEmails()) {
+            registered.forEach(email -> warmed.add(normalize(email)));
+        }
+        ready = true;
+    }
+
+    public boolean mightBeRegistered(String email) {
+        return !ready || emails.mightContain(normalize(email));
+    }
+
+    public void add(String email) {
+        if (email != null) {
+            emails.add(normalize(email));
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.product.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.product.Model.TokenRevocationModel;
+import com.example.product.Repository.TokenRevocationRepository;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// Revoked tokens, checked on every authenticated request without I/O. Revoked token ids
+// are held in an exact set behind a Bloom filter, so the usual "not revoked" answer is a
+// few bit probes; per-user cut-offs revoke every token a user was issued up to a time.
+// The token_revocation table is the source of truth shared by all nodes: it is loaded at
+// startup and re-read incrementally, with an overlap that tolerates late commits and
+// clock skew between nodes (revocations are idempotent).
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final long refreshOverlapMillis;
+
+    // Token id -> expiry of the token, epoch milliseconds
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // User id -> tokens issued at or before this time are revoked, epoch milliseconds
+    private final Map<Long, Long> userCutoffs = new ConcurrentHashMap<>();
+    private volatile BloomFilter revokedTokenFilter;
+    private volatile long refreshedAt;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository, MeterRegistry meterRegistry,
+            @Value("${app.token-revocation.expected-revocations:100000}") long expectedRevocations,
+            @Value("${app.token-revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.token-revocation.refresh-overlap:1m}") Duration refreshOverlap) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.refreshOverlapMillis = refreshOverlap.toMillis();
+        this.revokedTokenFilter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        Gauge.builder("token.revocations", revokedTokens, Map::size)
+                .description("Revoked tokens held in memory")
+                .tag("type", "token")
+                .register(meterRegistry);
+        Gauge.builder("token.revocations", userCutoffs, Map::size)
+                .description("Users whose earlier tokens are revoked")
+                .tag("type", "user")
+                .register(meterRegistry);
+    }
+
+    // Every unexpired revocation is in memory before the first request is authenticated
+    @PostConstruct
+    public void load() {
+        long now = System.currentTimeMillis();
+        tokenRevocationRepository.findByExpiresAtGreaterThan(now).forEach(this::apply);
+        refreshedAt = now;
+        log.info("Loaded {} revoked tokens and {} user cut-offs", revokedTokens.size(), userCutoffs.size());
+    }
+
+    public boolean isRevoked(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        Long userId = claims.get("id", Long.class);
+        if (userId != null && issuedAt != null) {
+            // iat has second precision, so a token from the cut-off's second counts as earlier
+            Long cutoff = userCutoffs.get(userId);
+            if (cutoff != null && issuedAt.getTime() <= cutoff) {
+                return true;
+            }
+        }
+        String tokenId = claims.getId();
+        return tokenId != null && revokedTokenFilter.mightContain(tokenId) && revokedTokens.containsKey(tokenId);
+    }
+
+    // Revokes a single token until it expires
+    @Transactional
+    public void revokeToken(String tokenId, Date expiresAt) {
+        save(TokenRevocationModel.builder()
+                .tokenId(tokenId)
+                .createdAt(System.currentTimeMillis())
+                .expiresAt(expiresAt.getTime())
+                .build());
+    }
+
+    // Revokes every token issued to the user so far; tokens issued later stay valid
+    @Transactional
+    public void revokeUserTokens(long userId) {
+        long now = System.currentTimeMillis();
+        save(TokenRevocationModel.builder()
+                .userId(userId)
+                .createdAt(now)
+                .expiresAt(now + JwtService.TOKEN_VALIDITY.toMillis())
+                .build());
+    }
+
+    // Picks up revocations made by other nodes
+    @Scheduled(fixedDelayString = "${app.token-revocation.refresh-interval:5s}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        List<TokenRevocationModel> revocations = tokenRevocationRepository
+                .findByCreatedAtGreaterThanEqual(refreshedAt - refreshOverlapMillis);
+        revocations.forEach(this::apply);
+        refreshedAt = now;
+    }
+
+    // Drops expired revocations from the table and from memory, and rebuilds the Bloom
+    // filter, which cannot forget the ids it was given
+    @Scheduled(initialDelayString = "${app.token-revocation.prune-interval:1h}",
+            fixedDelayString = "${app.token-revocation.prune-interval:1h}")
+    public void pruneExpired() {
+        long now = System.currentTimeMillis();
+        tokenRevocationRepository.deleteExpired(now);
+        userCutoffs.values().removeIf(cutoff -> cutoff + JwtService.TOKEN_VALIDITY.toMillis() <= now);
+        synchronized (this) {
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+            BloomFilter filter = new BloomFilter(Math.max(expectedRevocations, 2L * revokedTokens.size()),
+                    falsePositiveRate);
+            revokedTokens.keySet().forEach(filter::add);
+            revokedTokenFilter = filter;
+        }
+    }
+
+    private void save(TokenRevocationModel revocation) {
+        tokenRevocationRepository.save(revocation);
+
+        // This node applies its own revocation as soon as it is committed
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(revocation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(revocation);
+            }
+        });
+    }
+
+    private void apply(TokenRevocationModel revocation) {
+        if (revocation.getUserId() != null) {
+            userCutoffs.merge(revocation.getUserId(), revocation.getCreatedAt(), Math::max);
+        }
+        if (revocation.getTokenId() != null) {
+            // Serialized with the rebuild, so an id cannot miss the filter that replaces this one
+            synchronized (this) {
+                revokedTokens.put(revocation.getTokenId(), revocation.getExpiresAt());
+                revokedTokenFilter.add(revocation.getTokenId());
+            }
+        }
+    }
+}
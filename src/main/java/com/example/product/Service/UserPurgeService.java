@@ -0,0 +1,103 @@
+package com.example.product.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.product.Model.UserPurgeModel;
+import com.example.product.Repository.ProductRepository;
+import com.example.product.Repository.UserPurgeRepository;
+import com.example.product.Repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Removes the products of soft-deleted users in the background, one chunk per
+// transaction, then the user row itself. An instance claims a purge before each chunk,
+// so only one instance works on a user at a time; the claim expires after claim-timeout,
+// letting another instance resume a purge whose instance stopped, including after a restart.
+@Service
+public class UserPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPurgeService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final UserRepository userRepository;
+    private final UserPurgeRepository userPurgeRepository;
+    private final int chunkSize;
+    private final Duration claimTimeout;
+    private final Counter purgedProducts;
+
+    // Identifies this instance's claims
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public UserPurgeService(ProductRepository productRepository, ProductService productService,
+            UserRepository userRepository, UserPurgeRepository userPurgeRepository, MeterRegistry meterRegistry,
+            @Value("${app.user-purge.chunk-size:1000}") int chunkSize,
+            @Value("${app.user-purge.claim-timeout:5m}") Duration claimTimeout) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.userRepository = userRepository;
+        this.userPurgeRepository = userPurgeRepository;
+        this.chunkSize = chunkSize;
+        this.claimTimeout = claimTimeout;
+        this.purgedProducts = Counter.builder("user.purge.products")
+                .description("Products removed by the purge of deleted users")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.user-purge.initial-delay:10s}",
+            fixedDelayString = "${app.user-purge.interval:5s}")
+    public void purgePendingUsers() {
+        for (UserPurgeModel purge : userPurgeRepository.findByCompletedAtIsNullOrderByRequestedAtAsc()) {
+            try {
+                purge(purge.getUserId());
+            } catch (RuntimeException e) {
+                log.warn("Purge of user {} stopped, it will be resumed on the next run", purge.getUserId(), e);
+            }
+        }
+    }
+
+    public void purge(long userId) {
+        log.info("Purging products of deleted user {}", userId);
+
+        // Each chunk is the next range of the (user_id, id) index, deleted through the
+        // batch path so that the product cache and search index follow the commit
+        while (true) {
+            if (!claim(userId)) {
+                log.info("Purge of deleted user {} is being done by another instance", userId);
+                return;
+            }
+            List<Long> productIds = productRepository.findIdsByOwner(userId, Limit.of(chunkSize));
+            if (productIds.isEmpty()) {
+                break;
+            }
+            int deleted = productService.deleteProducts(productIds);
+            if (userPurgeRepository.addDeletedProducts(userId, instanceId, deleted) == 0) {
+                log.info("Purge of deleted user {} was taken over by another instance", userId);
+                return;
+            }
+            purgedProducts.increment(deleted);
+            log.debug("Purged {} products of deleted user {}", deleted, userId);
+        }
+
+        userRepository.deleteSoftDeleted(userId);
+        userPurgeRepository.markCompleted(userId, instanceId, Instant.now());
+        log.info("Purge of deleted user {} completed", userId);
+    }
+
+    // Claims the purge, or extends this instance's claim, for the next chunk
+    private boolean claim(long userId) {
+        Instant now = Instant.now();
+        return userPurgeRepository.claim(userId, instanceId, now, now.plus(claimTimeout)) > 0;
+    }
+}
@@ -1,66 +1,219 @@
 package com.example.product.Service;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.example.product.Model.PageResponse;
+import com.example.product.Model.UserCursor;
 import com.example.product.Model.UserModel;
+import com.example.product.Model.UserPurgeModel;
+import com.example.product.Model.UserSnapshot;
+import com.example.product.Repository.UserPurgeRepository;
 import com.example.product.Repository.UserRepository;
+import com.example.product.config.cacheConfig;
 
 @Service
 public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserPurgeRepository userPurgeRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    public List<UserModel> getAllUsers() {
-        return userRepository.findAll();
-    }
+    @Autowired
+    @Qualifier("passwordHashingExecutor")
+    private Executor passwordHashingExecutor;
 
-    public void registerUser(UserModel user) {
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
-        if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-            throw new IllegalArgumentException("Email is already in use.");
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    // A keyset page of users without password hashes. With a last name or email prefix the
+    // page is read in that column's order, so the prefix range and the order come from one
+    // index, and ?after= is a UserCursor token; otherwise users are in id order after an id.
+    @Transactional(readOnly = true)
+    public List<UserSnapshot> getUsersPage(String namePrefix, String emailPrefix, String after, Integer limit) {
+        if (namePrefix != null && emailPrefix != null) {
+            throw new IllegalArgumentException("Filter by name or by email, not both");
+        }
+        Limit pageSize = Limit.of(PageResponse.resolvePageSize(limit));
+        if (namePrefix == null && emailPrefix == null) {
+            return userRepository.findSnapshots(after == null ? 0L : Long.parseLong(after), pageSize);
         }
-        String hashedPassword = passwordEncoder.encode(user.getPassword());
-        user.setPassword(hashedPassword);
-        userRepository.save(user);
-    }
 
-    public boolean authenticate(String email, String password) {
+        // Names and emails are never empty, so ("", 0) is before every user
+        UserCursor cursor = after == null ? new UserCursor("", 0L) : UserCursor.decode(after);
+        return namePrefix != null
+                ? userRepository.findSnapshotsByLastNamePrefix(likePrefix(namePrefix), cursor.value(), cursor.id(),
+                        pageSize)
+                : userRepository.findSnapshotsByEmailPrefix(likePrefix(emailPrefix), cursor.value(), cursor.id(),
+                        pageSize);
+    }
 
-        Optional<UserModel> userOptional = userRepository.findByEmail(email);
+    // Hands every user to the consumer one at a time, with constant memory use
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserSnapshot> consumer) {
+        try (Stream<UserSnapshot> users = userRepository.streamAllSnapshots()) {
+            users.forEach(consumer);
+        }
+    }
 
-        if (userOptional.isPresent()) {
-            UserModel user = userOptional.get();
+    // A LIKE pattern for values starting with the prefix; '!' escapes the wildcards
+    static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
 
-            return passwordEncoder.matches(password, user.getPassword());
+    // Registers the user with a single insert; the unique email column rejects duplicates,
+    // also between concurrent sign-ups, as DuplicateKeyException. Only emails the filter
+    // may have seen are looked up first, so likely duplicates fail before any hashing.
+    // The password is hashed on the password hashing pool, bounding what a burst of
+    // sign-ups can take. Throws TaskRejectedException when the pool is full.
+    public CompletableFuture<UserModel> registerUser(UserModel user) {
+        if (registeredEmailFilter.mightBeRegistered(user.getEmail())
+                && userRepository.findIdByEmailIncludingDeleted(user.getEmail()).isPresent()) {
+            return CompletableFuture.failedFuture(new DuplicateKeyException("Email is already in use."));
         }
 
-        return false;
+        return CompletableFuture.supplyAsync(() -> {
+            user.setPassword(passwordEncoder.encode(user.getPassword()));
+            UserModel saved;
+            try {
+                saved = userRepository.saveAndFlush(user);
+            } catch (DataIntegrityViolationException e) {
+                // The email is the only unique column that is not generated
+                throw new DuplicateKeyException("Email is already in use.", e);
+            }
+            registeredEmailFilter.add(saved.getEmail());
+            return saved;
+        }, passwordHashingExecutor);
+    }
+
+    // Checks the password of an already loaded user on the password hashing pool, so
+    // login needs a single user lookup. Hashes made with an outdated encoder or strength
+    // are replaced after a successful match. Throws TaskRejectedException when the pool is full.
+    public CompletableFuture<Boolean> authenticate(UserModel user, String password) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (password == null || !passwordEncoder.matches(password, user.getPassword())) {
+                return false;
+            }
+
+            if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                userRepository.updatePassword(user.getId(), passwordEncoder.encode(password));
+            }
+            return true;
+        }, passwordHashingExecutor);
     }
 
     public UserModel getUserByEmail(String email) {
         return userRepository.findByEmail(email).orElse(null);
     }
 
-    public void deleteUserByEmail(String email) {
-        UserModel user = userRepository.findByEmail(email).orElse(null);
+    // The user without the password hash, from the users cache; loaded with a projection
+    // on a miss. Misses are not cached, so a new user is visible at once.
+    public Optional<UserSnapshot> getUserSnapshot(long id) {
+        Cache users = cache(cacheConfig.USERS_CACHE);
+        UserSnapshot cached = users.get(id, UserSnapshot.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<UserSnapshot> user = userRepository.findById(id, UserSnapshot.class);
+        user.ifPresent(this::cacheSnapshot);
+        return user;
+    }
+
+    public Optional<UserSnapshot> getUserSnapshotByEmail(String email) {
+        Long id = cache(cacheConfig.USER_IDS_CACHE).get(email, Long.class);
+        if (id != null) {
+            // The mapping outlives an email change, so the snapshot must still match
+            Optional<UserSnapshot> user = getUserSnapshot(id);
+            if (user.isPresent() && user.get().email().equals(email)) {
+                return user;
+            }
+            cache(cacheConfig.USER_IDS_CACHE).evict(email);
+        }
+        Optional<UserSnapshot> user = userRepository.findByEmail(email, UserSnapshot.class);
+        user.ifPresent(this::cacheSnapshot);
+        return user;
+    }
+
+    // Proxy carrying only the id, for setting the owner of a product without a SELECT
+    public UserModel getUserReference(long id) {
+        return userRepository.getReferenceById(id);
+    }
 
-        if (user != null) {
-            userRepository.delete(user);
-        } else {
-            throw new IllegalArgumentException("User not found");
+    // Soft-deletes the user, records a purge and revokes the user's tokens; their products
+    // are removed later by UserPurgeService, so the request neither waits for nor locks them.
+    // Returns false when the user does not exist or is already deleted.
+    @Transactional
+    public boolean deleteUser(long userId) {
+        Instant now = Instant.now();
+        if (userRepository.markDeleted(userId, now) == 0) {
+            return false;
         }
+        userPurgeRepository.save(UserPurgeModel.builder().userId(userId).requestedAt(now).build());
+        tokenRevocationService.revokeUserTokens(userId);
+        evictAfterCommit(userId);
+        return true;
     }
 
     public void saveUser(UserModel user) {
         userRepository.save(user);
+        // A changed email holds the unique key from now on
+        registeredEmailFilter.add(user.getEmail());
+        evictAfterCommit(user.getId());
+    }
+
+    private void cacheSnapshot(UserSnapshot user) {
+        cache(cacheConfig.USERS_CACHE).put(user.id(), user);
+        cache(cacheConfig.USER_IDS_CACHE).put(user.email(), user.id());
+    }
+
+    // Only the snapshot is evicted: a cached email that no longer matches is detected on read
+    private void evictAfterCommit(long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache(cacheConfig.USERS_CACHE).evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache(cacheConfig.USERS_CACHE).evict(userId);
+            }
+        });
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache " + name + " is not configured");
+        }
+        return cache;
     }
 
 }
@@ -0,0 +1,275 @@
+package com.example.product.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.product.Model.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Sends read-only transactions to a read replica and everything else to the primary.
+// A replica is in rotation while its lag, measured every lag-check-interval with the lag
+// query on a thread of its own, is within max-lag; with none in rotation reads go to the primary. After a user's
+// read-write transaction commits, that user's reads stay on the primary for the
+// stickiness window, so they see their own writes. Must be wrapped in a
+// LazyConnectionDataSourceProxy: the connection is then taken at the first statement,
+// once the transaction's read-only flag is known.
+public class ReadReplicaRoutingDataSource extends AbstractDataSource
+        implements TransactionExecutionListener, InitializingBean, DisposableBean {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_CONNECTIONS;
+
+        // Accepts the property spelling, e.g. round-robin or least-connections
+        public static Selection parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown replica selection: " + value, e);
+            }
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    // Lag column of MySQL's SHOW REPLICA STATUS; other lag queries return seconds in column 1
+    private static final String SECONDS_BEHIND_SOURCE = "Seconds_Behind_Source";
+
+    // Spring Data runs single repository calls in read-only transactions of its own. Those
+    // stay on the primary, so a lone lookup (login after sign-up, ownership checks, the
+    // product cache) never reads a stale row; services opt in with @Transactional(readOnly = true).
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available = false;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final Duration lagCheckInterval;
+    // Not the application scheduler: a replica that hangs until its connection timeout
+    // must not hold up the purge or the change feed poll
+    private final ThreadPoolTaskScheduler lagChecker = new ThreadPoolTaskScheduler();
+    // User id -> present while the user's last write may not have reached the replicas
+    private final Cache<Long, Boolean> recentWriters;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, Selection selection,
+            Duration maxLag, String lagQuery, Duration lagCheckInterval, Duration stickiness,
+            MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicaDataSources.size())
+                .mapToObj(i -> new Replica("replica-" + i, replicaDataSources.get(i)))
+                .toList();
+        this.selection = selection;
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery;
+        this.lagCheckInterval = lagCheckInterval;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(stickiness)
+                .build();
+        this.replicaReads = Counter.builder("datasource.reads")
+                .description("Read-only transactions by the database they were routed to")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.primaryReads = Counter.builder("datasource.reads")
+                .description("Read-only transactions by the database they were routed to")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replicas.available", this, ReadReplicaRoutingDataSource::availableReplicas)
+                .description("Read replicas within the allowed lag")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = route();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            // Out of rotation until the next successful lag check
+            replica.available = false;
+            log.warn("Read replica {} is unreachable, reading from the primary", replica.name, e);
+            return primary.getConnection();
+        }
+    }
+
+    // Connections with explicit credentials always come from the primary
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    // Pool introspection, such as the concurrency limits, sees the primary pool
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    // Marks the user as a recent writer once a read-write transaction has committed
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            Long userId = currentUserId();
+            if (userId != null) {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        }
+    }
+
+    // Replicas start out of rotation until their first lag check, which runs in the
+    // background so an unreachable replica does not hold up startup
+    @Override
+    public void afterPropertiesSet() {
+        lagChecker.setThreadNamePrefix("replica-lag-check-");
+        lagChecker.setDaemon(true);
+        lagChecker.initialize();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, lagCheckInterval);
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean available = lagMillis(replica) <= maxLagMillis;
+            if (available != replica.available) {
+                log.info(available ? "Read replica {} is back in rotation"
+                        : "Read replica {} is lagging or unreachable, its reads go to the primary", replica.name);
+            }
+            replica.available = available;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        lagChecker.shutdown();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public int availableReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.available).count();
+    }
+
+    // The replica for the current transaction, or null for the primary
+    private Replica route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName != null && transactionName.startsWith(REPOSITORY_TRANSACTION_PREFIX)) {
+            return null;
+        }
+
+        Long userId = currentUserId();
+        Replica replica = userId != null && recentWriters.getIfPresent(userId) != null ? null : select();
+        (replica != null ? replicaReads : primaryReads).increment();
+        return replica;
+    }
+
+    private Replica select() {
+        List<Replica> available = replicas.stream().filter(replica -> replica.available).toList();
+        if (available.isEmpty()) {
+            return null;
+        }
+        if (selection == Selection.LEAST_CONNECTIONS) {
+            return available.stream()
+                    .min(Comparator.comparingInt(ReadReplicaRoutingDataSource::activeConnections))
+                    .get();
+        }
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size()));
+    }
+
+    private static int activeConnections(Replica replica) {
+        try {
+            HikariPoolMXBean pool = replica.dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    // Replication lag in milliseconds; unknown (unreachable, not replicating, or a null
+    // lag) counts as infinite
+    private long lagMillis(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery(lagQuery)) {
+            if (!result.next()) {
+                return Long.MAX_VALUE;
+            }
+            double seconds = result.getDouble(lagColumn(result.getMetaData()));
+            return result.wasNull() ? Long.MAX_VALUE : (long) (seconds * 1000);
+        } catch (SQLException e) {
+            log.debug("Lag check of read replica {} failed", replica.name, e);
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            if (SECONDS_BEHIND_SOURCE.equalsIgnoreCase(metaData.getColumnLabel(column))) {
+                return column;
+            }
+        }
+        return 1;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.id()
+                : null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.product.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Cache sizes and TTLs are set through spring.cache.* in application.properties.
+// A second tier (e.g. Redis) can be added by providing another CacheManager bean.
+// The cache advice wraps the transaction advice, so @CacheEvict on a @Transactional
+// method runs after the commit and a concurrent read cannot re-cache the old row.
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class cacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+
+    // UserSnapshot by user id, and user id by email
+    public static final String USERS_CACHE = "users";
+    public static final String USER_IDS_CACHE = "user-ids";
+
+}
@@ -0,0 +1,51 @@
+package com.example.product.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.product.Model.IdAllocation;
+
+import jakarta.annotation.PostConstruct;
+
+// Migration path for the table-backed id generators. Runs once the schema exists and
+// before the web server accepts requests, and moves each generator past the highest
+// existing id so rows created with the previous AUTO strategy are never reused.
+// GREATEST keeps the statement idempotent when several instances start together.
+@Configuration
+@DependsOn("entityManagerFactory")
+public class idAllocationConfig {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public idAllocationConfig(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignIdGenerators() {
+        alignIdGenerator(IdAllocation.PRODUCT, "product_model");
+        alignIdGenerator(IdAllocation.USER, "user_model");
+    }
+
+    private void alignIdGenerator(String entity, String entityTable) {
+        // The generator hands out the block ending at next_value, so leave a full block of headroom
+        long floor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + entityTable, Long.class)
+                + IdAllocation.ALLOCATION_SIZE + 1;
+
+        int updated = jdbcTemplate.update("UPDATE " + IdAllocation.TABLE + " SET " + IdAllocation.NEXT_VALUE_COLUMN
+                + " = GREATEST(" + IdAllocation.NEXT_VALUE_COLUMN + ", ?) WHERE " + IdAllocation.ENTITY_COLUMN + " = ?",
+                floor, entity);
+
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO " + IdAllocation.TABLE + " (" + IdAllocation.ENTITY_COLUMN + ", "
+                        + IdAllocation.NEXT_VALUE_COLUMN + ") VALUES (?, ?)", entity, floor);
+            } catch (DuplicateKeyException e) {
+                // Another instance or the generator itself created the row first
+                alignIdGenerator(entity, entityTable);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.product.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import com.example.product.Filter.AdaptiveConcurrencyLimiter;
+import com.example.product.Filter.RateLimitFilter;
+import com.example.product.Filter.TokenBucketRateLimiter;
+import com.example.product.Service.JwtService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Rate limits and adaptive concurrency limit, configured with app.rate-limit.* and
+// app.admission.*. Runs before Spring Security and the database concurrency filter.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class rateLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(Environment environment, DataSource dataSource,
+            JwtService jwtService, MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.max-tracked-keys:100000}") long maxKeys,
+            @Value("${app.admission.initial-limit:20}") int initialLimit,
+            @Value("${app.admission.min-limit:5}") int minLimit,
+            @Value("${app.admission.max-limit:200}") int maxLimit,
+            @Value("${app.admission.latency-threshold:500ms}") Duration latencyThreshold,
+            @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio) {
+        TokenBucketRateLimiter ipLimiter = limiter(environment, meterRegistry, "ip", 200, 100, maxKeys);
+        TokenBucketRateLimiter userLimiter = limiter(environment, meterRegistry, "user", 100, 50, maxKeys);
+        // Registration and login both hash a password, so they share one bucket per client
+        TokenBucketRateLimiter authLimiter = limiter(environment, meterRegistry, "auth", 10, 0.5, maxKeys);
+        TokenBucketRateLimiter searchLimiter = limiter(environment, meterRegistry, "search", 20, 5, maxKeys);
+        List<RateLimitFilter.RouteLimit> routeLimits = List.of(
+                new RateLimitFilter.RouteLimit("POST", "/login", authLimiter),
+                new RateLimitFilter.RouteLimit("POST", "/user", authLimiter),
+                new RateLimitFilter.RouteLimit("GET", "/products/search", searchLimiter));
+
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit,
+                maxLimit, latencyThreshold.toNanos(), backoffRatio, () -> connectionWaiters(dataSource));
+        Gauge.builder("admission.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent requests")
+                .register(meterRegistry);
+        Gauge.builder("admission.concurrency.in.flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted by the adaptive concurrency limit")
+                .register(meterRegistry);
+
+        RateLimitFilter filter = new RateLimitFilter(ipLimiter, userLimiter, routeLimits, concurrencyLimiter,
+                jwtService, meterRegistry, Set.of("/products/changes"));
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    private TokenBucketRateLimiter limiter(Environment environment, MeterRegistry meterRegistry, String name,
+            int defaultCapacity, double defaultRefillPerSecond, long maxKeys) {
+        int capacity = environment.getProperty("app.rate-limit." + name + ".capacity", Integer.class, defaultCapacity);
+        double refillPerSecond = environment.getProperty("app.rate-limit." + name + ".refill-per-second",
+                Double.class, defaultRefillPerSecond);
+
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(name, capacity, refillPerSecond, maxKeys);
+        Gauge.builder("rate.limit.tracked.keys", limiter, TokenBucketRateLimiter::trackedKeys)
+                .description("Clients with a token bucket currently held in memory")
+                .tag("limit", name)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    // Threads waiting for a JDBC connection; any waiter means the pool is saturated
+    private int connectionWaiters(DataSource dataSource) {
+        try {
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
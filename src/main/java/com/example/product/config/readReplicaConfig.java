@@ -0,0 +1,89 @@
+package com.example.product.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Read replicas, enabled by listing their JDBC URLs in app.read-replicas.urls. The primary
+// pool is still configured with spring.datasource.*; the application DataSource becomes a
+// lazy proxy over ReadReplicaRoutingDataSource, which owns the replica pools.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "app.read-replicas.urls")
+public class readReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(HikariDataSource primaryDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.read-replicas.urls}") List<String> urls,
+            @Value("${app.read-replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${app.read-replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${app.read-replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${app.read-replicas.connection-timeout:2s}") Duration connectionTimeout,
+            @Value("${app.read-replicas.selection:round-robin}") String selection,
+            @Value("${app.read-replicas.max-lag:5s}") Duration maxLag,
+            @Value("${app.read-replicas.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+            @Value("${app.read-replicas.lag-check-interval:2s}") Duration lagCheckInterval,
+            @Value("${app.read-replicas.stickiness:10s}") Duration stickiness) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            // A replica that does not answer quickly is skipped for the primary
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.add(replica);
+        }
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicas,
+                ReadReplicaRoutingDataSource.Selection.parse(selection), maxLag, lagQuery, lagCheckInterval,
+                stickiness, meterRegistry);
+    }
+
+    // JPA and JdbcTemplate use this one. The physical connection is taken at the first
+    // statement, after the transaction manager has set the read-only flag that routes it.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+
+    // Spring has Hibernate hold a session's connection until the EntityManager closes, and
+    // with open-in-view that is the end of the request: a write after a read-only call
+    // would run on the replica. Releasing it after each transaction routes every
+    // transaction on its own.
+    @Bean
+    public HibernatePropertiesCustomizer readReplicaConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.product.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.example.product.Filter.DatabaseConcurrencyLimitFilter;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Request execution mode. With spring.threads.virtual.enabled=true (Java 21+) Tomcat and
+// the async executor run on virtual threads, and the beans below keep them from
+// overrunning the JDBC pool. Password hashing stays on its bounded platform pool.
+@Configuration
+public class threadingConfig {
+
+    // Declaring passwordHashingExecutor makes Spring Boot skip its default executor,
+    // which MVC async requests (e.g. NDJSON streaming) run on, so it is declared here
+    @Bean(name = "applicationTaskExecutor")
+    @Primary
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = "applicationTaskExecutor")
+    @Primary
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualThreadTaskExecutor(SimpleAsyncTaskExecutorBuilder builder) {
+        SimpleAsyncTaskExecutor executor = builder.build();
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    // Writes product change events to their streams, off the scheduler thread that polls
+    // for them. A subscriber has at most one batch queued or being written, so the queue
+    // holds one task per consumer.
+    @Bean
+    public ThreadPoolTaskExecutor productChangeDeliveryExecutor(
+            @Value("${app.product-changes.delivery-threads:4}") int threads,
+            @Value("${app.product-changes.max-consumers:1000}") int maxConsumers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(maxConsumers);
+        executor.setThreadNamePrefix("product-changes-");
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<DatabaseConcurrencyLimitFilter> databaseConcurrencyLimitFilter(
+            DataSource dataSource, MeterRegistry meterRegistry,
+            @Value("${app.db-concurrency.max-requests:0}") int maxRequests,
+            @Value("${app.db-concurrency.acquire-timeout:2s}") Duration acquireTimeout) {
+        // Default to one in-flight request per pooled connection
+        int permits = maxRequests > 0 ? maxRequests : maximumPoolSize(dataSource);
+
+        DatabaseConcurrencyLimitFilter filter = new DatabaseConcurrencyLimitFilter(permits, acquireTimeout.toMillis(),
+                Set.of("/products/changes"));
+        Gauge.builder("db.concurrency.limit.available", filter, DatabaseConcurrencyLimitFilter::availablePermits)
+                .description("Request permits left before new requests wait for the JDBC pool")
+                .register(meterRegistry);
+
+        FilterRegistrationBean<DatabaseConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        return new VirtualThreadPinningMonitor(meterRegistry, threshold);
+    }
+
+    private int maximumPoolSize(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (Exception e) {
+            return 10;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.product;
+
+import com.example.product.Filter.DatabaseConcurrencyLimitFilter;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseConcurrencyLimitFilterTest {
+
+    private final DatabaseConcurrencyLimitFilter filter = new DatabaseConcurrencyLimitFilter(1, 0,
+            Set.of("/products/changes"));
+
+    // Starts async processing the way StreamingResponseBody and CompletableFuture handlers do
+    private final FilterChain asyncHandler = (request, response) -> request.startAsync();
+
+    private MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    @Test
+    public void testAsyncRequest_HoldsItsPermitUntilComplete() throws Exception {
+        MockHttpServletRequest streaming = request("/products");
+        filter.doFilter(streaming, new MockHttpServletResponse(), asyncHandler);
+        assertEquals(0, filter.availablePermits());
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("/products"), rejected, asyncHandler);
+        assertEquals(503, rejected.getStatus());
+
+        streaming.getAsyncContext().complete();
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    public void testChangeFeedWait_ReleasesItsPermitWhenTheHandlerReturns() throws Exception {
+        filter.doFilter(request("/products/changes"), new MockHttpServletResponse(), asyncHandler);
+        assertEquals(1, filter.availablePermits());
+    }
+}
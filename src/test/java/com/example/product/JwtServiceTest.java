@@ -0,0 +1,52 @@
+package com.example.product;
+
+import com.example.product.Service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtServiceTest {
+
+    private final JwtService jwtService = new JwtService(new SimpleMeterRegistry());
+
+    @Test
+    public void testValidToken_ClaimsAreExtracted() {
+        String token = jwtService.generateToken("user@example.com", 42L);
+
+        assertTrue(jwtService.validateToken(token));
+        assertEquals("user@example.com", jwtService.extractUsername(token));
+        assertEquals(42L, jwtService.getUserIdFromToken(token));
+    }
+
+    @Test
+    public void testValidToken_VerifiedClaimsAreCached() {
+        String token = jwtService.generateToken("user@example.com", 42L);
+
+        Claims first = jwtService.getVerifiedClaims(token);
+        Claims second = jwtService.getVerifiedClaims(token);
+
+        assertNotNull(first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testGeneratedTokens_HaveDistinctIds() {
+        Claims first = jwtService.getVerifiedClaims(jwtService.generateToken("user@example.com", 42L));
+        Claims second = jwtService.getVerifiedClaims(jwtService.generateToken("user@example.com", 42L));
+
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    public void testTamperedToken_IsRejected() {
+        String token = jwtService.generateToken("user@example.com", 42L);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertFalse(jwtService.validateToken(tampered));
+        assertNull(jwtService.getUserIdFromToken(tampered));
+        assertNull(jwtService.getVerifiedClaims(null));
+    }
+}
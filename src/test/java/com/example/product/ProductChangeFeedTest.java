@@ -0,0 +1,200 @@
+package com.example.product;
+
+import com.example.product.Model.ProductChangeModel;
+import com.example.product.Model.ProductChangePruneModel;
+import com.example.product.Model.ProductChangeType;
+import com.example.product.Repository.ProductChangePruneRepository;
+import com.example.product.Repository.ProductChangeRepository;
+import com.example.product.Service.ProductChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class ProductChangeFeedTest {
+
+    @Mock
+    private ProductChangeRepository productChangeRepository;
+
+    @Mock
+    private ProductChangePruneRepository productChangePruneRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductChangeFeed productChangeFeed;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        productChangeFeed = feed(new SyncTaskExecutor(), Duration.ofSeconds(10));
+    }
+
+    private ProductChangeFeed feed(TaskExecutor deliveryExecutor, Duration deliveryTimeout) {
+        return new ProductChangeFeed(productChangeRepository, productChangePruneRepository, jdbcTemplate,
+                new ObjectMapper(),
+                new SimpleMeterRegistry(), deliveryExecutor, deliveryTimeout, Duration.ofDays(7), 10);
+    }
+
+    private ProductChangeModel change(long id) {
+        return ProductChangeModel.builder().id(id).productId(id).type(ProductChangeType.DELETED)
+                .changedAt(System.currentTimeMillis()).build();
+    }
+
+    private List<Long> ids(List<ProductChangeModel> changes) {
+        return changes.stream().map(ProductChangeModel::getId).toList();
+    }
+
+    @Test
+    public void testGetChanges_StopsAtGapStillBeingInserted() {
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(100)))
+                .thenReturn(List.of(change(11L), change(13L)));
+        when(productChangeRepository.findLockedBetween(12L, 12L))
+                .thenThrow(new PessimisticLockingFailureException("Lock wait"));
+
+        // Id 12 is still being committed, so the page ends before it
+        assertEquals(List.of(11L), ids(productChangeFeed.getChanges(10L, 100)));
+    }
+
+    @Test
+    public void testGetChanges_StopsAtGapCommittedSinceTheRead() {
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(100)))
+                .thenReturn(List.of(change(11L), change(13L)));
+        when(productChangeRepository.findLockedBetween(12L, 12L)).thenReturn(List.of(change(12L)));
+
+        assertEquals(List.of(11L), ids(productChangeFeed.getChanges(10L, 100)));
+    }
+
+    @Test
+    public void testGetChanges_SkipsGapConfirmedAbsent() {
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(100)))
+                .thenReturn(List.of(change(11L), change(14L)));
+        when(productChangeRepository.findLockedBetween(12L, 13L)).thenReturn(List.of());
+
+        assertEquals(List.of(11L, 14L), ids(productChangeFeed.getChanges(10L, 100)));
+        assertEquals(List.of(11L, 14L), ids(productChangeFeed.getChanges(10L, 100)));
+
+        // A rolled back id stays absent, so it is checked once
+        verify(productChangeRepository, times(1)).findLockedBetween(12L, 13L);
+    }
+
+    @Test
+    public void testAwaitChanges_CompletedByDispatch() {
+        ProductChangeModel change = change(6L);
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(100)))
+                .thenReturn(List.of(), List.of(change));
+        when(productChangeRepository.findLatestId()).thenReturn(Optional.of(6L));
+
+        CompletableFuture<List<ProductChangeModel>> result = productChangeFeed.awaitChanges(5L, 100,
+                Duration.ofMinutes(1));
+        assertFalse(result.isDone());
+        assertEquals(1, productChangeFeed.consumers());
+
+        productChangeFeed.dispatch();
+
+        assertTrue(result.isDone());
+        assertEquals(List.of(change), result.join());
+        assertEquals(0, productChangeFeed.consumers());
+    }
+
+    @Test
+    public void testSubscriber_StalledDeliveryIsSkippedThenDropped() {
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(100)))
+                .thenReturn(List.of(change(6L)));
+        when(productChangeRepository.findLatestId()).thenReturn(Optional.of(6L));
+        // Deliveries are queued but not run, as if the client had stopped reading
+        List<Runnable> deliveries = new ArrayList<>();
+        ProductChangeFeed feed = feed(deliveries::add, Duration.ZERO);
+        List<List<ProductChangeModel>> received = new ArrayList<>();
+        int[] dropped = {0};
+
+        feed.subscribe(5L, 100, received::add, () -> dropped[0]++);
+        feed.dispatch();
+        assertEquals(1, deliveries.size());
+
+        // The next poll neither queues another batch nor waits for the stalled one
+        feed.dispatch();
+        assertEquals(1, deliveries.size());
+        assertEquals(0, feed.consumers());
+        assertEquals(0, dropped[0]);
+
+        // The stream is closed once its pending write returns
+        deliveries.get(0).run();
+        assertTrue(received.isEmpty());
+        assertEquals(1, dropped[0]);
+    }
+
+    @Test
+    public void testSubscriber_DroppedWhenTheDeliveryQueueIsFull() {
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(5L, Limit.of(100)))
+                .thenReturn(List.of(change(6L)));
+        when(productChangeRepository.findLatestId()).thenReturn(Optional.of(6L));
+        ProductChangeFeed feed = feed(task -> {
+            throw new TaskRejectedException("Queue full");
+        }, Duration.ofSeconds(10));
+        int[] dropped = {0};
+
+        feed.subscribe(5L, 100, changes -> {
+        }, () -> dropped[0]++);
+        feed.dispatch();
+
+        assertEquals(0, feed.consumers());
+        assertEquals(1, dropped[0]);
+    }
+
+    @Test
+    public void testPruneExpiredChanges_RaisesTheWatermark() {
+        ProductChangePruneModel watermark = new ProductChangePruneModel(ProductChangePruneModel.ID, 10L);
+        when(productChangePruneRepository.findForUpdate()).thenReturn(Optional.of(watermark));
+        when(productChangeRepository.findLatestIdChangedBefore(anyLong())).thenReturn(Optional.of(20L));
+
+        productChangeFeed.pruneExpiredChanges();
+
+        verify(productChangeRepository).deleteThrough(20L);
+        verify(productChangePruneRepository).save(watermark);
+        assertEquals(20L, watermark.getPrunedThrough());
+    }
+
+    @Test
+    public void testConsumerBehindThePrunedChanges_IsToldToResync() {
+        when(productChangePruneRepository.findPrunedThrough()).thenReturn(Optional.of(20L));
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(100)))
+                .thenReturn(List.of(change(21L), change(22L)));
+        when(productChangeRepository.findLatestId()).thenReturn(Optional.of(22L));
+
+        // Ids 11 to 20 were pruned, not rolled back, so they are never skipped
+        assertTrue(productChangeFeed.isPruned(10L));
+        assertFalse(productChangeFeed.isPruned(20L));
+        assertTrue(productChangeFeed.getChanges(10L, 100).isEmpty());
+        verify(productChangeRepository, never()).findLockedBetween(anyLong(), anyLong());
+
+        // An event stream at that cursor is closed, and is told to resync when it reconnects
+        List<List<ProductChangeModel>> received = new ArrayList<>();
+        int[] dropped = {0};
+        productChangeFeed.subscribe(10L, 100, received::add, () -> dropped[0]++);
+        productChangeFeed.dispatch();
+
+        assertTrue(received.isEmpty());
+        assertEquals(1, dropped[0]);
+        assertEquals(0, productChangeFeed.consumers());
+    }
+}
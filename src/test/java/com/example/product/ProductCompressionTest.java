@@ -0,0 +1,78 @@
+package com.example.product;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the servlet application on Tomcat with an in-memory database, so that the
+// response compression configured in application.properties applies
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:compression;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration"})
+public class ProductCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ResponseEntity<String> exchange(HttpMethod method, String url, String body, HttpHeaders headers) {
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return restTemplate.exchange(url, method, new HttpEntity<>(body, headers), String.class);
+    }
+
+    private String login() {
+        String user = "{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"email\":\"jane@example.com\",\"password\":\"password1\"}";
+        exchange(HttpMethod.POST, "/user", user, new HttpHeaders());
+        String body = exchange(HttpMethod.POST, "/login",
+                "{\"email\":\"jane@example.com\",\"password\":\"password1\"}", new HttpHeaders()).getBody();
+        return body.replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+    }
+
+    @Test
+    public void testProductsPage_IsGzipped() throws Exception {
+        HttpHeaders auth = new HttpHeaders();
+        auth.setBearerAuth(login());
+
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            batch.append(i == 0 ? "" : ",").append("{\"productName\":\"Product ").append(i)
+                    .append("\",\"description\":\"Description\",\"price\":1.0,\"image\":\"image.jpg\"}");
+        }
+        exchange(HttpMethod.POST, "/products/batch", batch.append("]").toString(), auth);
+        assertEquals(50, jdbcTemplate.queryForObject("select count(*) from product_model", Integer.class));
+
+        // The JDK client leaves Accept-Encoding as set and the body undecoded
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/products?limit=50"))
+                .header(HttpHeaders.AUTHORIZATION, auth.getFirst(HttpHeaders.AUTHORIZATION))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build();
+        HttpResponse<byte[]> page = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, page.statusCode());
+        assertTrue(page.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/\""));
+        assertEquals("gzip", page.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+    }
+}
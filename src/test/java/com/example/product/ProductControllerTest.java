@@ -1,24 +1,55 @@
 package com.example.product;
 
+import com.example.product.Model.AuthenticatedUser;
+import com.example.product.Model.OwnedProductUpdate;
+import com.example.product.Model.OwnedWriteResult;
+import com.example.product.Model.ProductChangeModel;
+import com.example.product.Model.ProductChangeType;
+import com.example.product.Model.ProductCursor;
+import com.example.product.Model.ProductFilter;
 import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSort;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Model.SerializedProduct;
+import com.example.product.Model.UserModel;
+import com.example.product.Model.UserSnapshot;
 import com.example.product.Service.JwtService;
+import com.example.product.Service.ProductChangeFeed;
 import com.example.product.Service.ProductService;
+import com.example.product.Service.UserService;
 import com.example.product.Controller.ProductController;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.startsWith;
 
 public class ProductControllerTest {
 
@@ -30,6 +61,15 @@ public class ProductControllerTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private ProductChangeFeed productChangeFeed;
+
+    @Mock
+    private UserService userService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ProductController productController;
 
@@ -37,32 +77,166 @@ public class ProductControllerTest {
     public void setUp() {
         MockitoAnnotations.openMocks(this);
         mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+
+        // Simulate the principal that JwtAuthenticationFilter stores for a valid token
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser("user@example.com", 1L), "validtoken", null));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private SerializedProduct serialized(ProductModel product) throws Exception {
+        return new SerializedProduct(product.getVersion(), objectMapper.writeValueAsBytes(product));
+    }
+
+    private UserModel owner() {
+        UserModel user = new UserModel();
+        user.setId(1L);
+        return user;
     }
 
     @Test
     @WithMockUser
     public void testGetProducts_Authenticated_Success() throws Exception {
         // Mock a product list
-        ProductModel product1 = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null);
-        ProductModel product2 = new ProductModel(2L, "Product 2", "Description", 150.0, "image2.jpg", null);
+        ProductSummary product1 = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+        ProductSummary product2 = new ProductSummary(2L, "Product 2", "Description", 150.0, "image2.jpg", 0L);
 
-        when(productService.getAllProducts()).thenReturn(List.of(product1, product2));
+        // The full listing is streamed row by row rather than loaded as a list
+        when(productService.getProductsPage(null, 1)).thenReturn(List.of(product1));
+        doAnswer(invocation -> {
+            Consumer<ProductSummary> consumer = invocation.getArgument(0);
+            consumer.accept(product1);
+            consumer.accept(product2);
+            return null;
+        }).when(productService).streamAllProducts(any());
 
         mockMvc.perform(MockMvcRequestBuilders.get("/products"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("success"))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("All products are available."));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("All products are available."))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[1].productName").value("Product 2"));
+
+        verify(productService, never()).getAllProducts();
+    }
+
+    @Test
+    public void testGetProducts_AcceptSmile_StreamsSmileEnvelope() throws Exception {
+        ProductSummary product1 = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+
+        when(productService.getProductsPage(null, 1)).thenReturn(List.of(product1));
+        doAnswer(invocation -> {
+            Consumer<ProductSummary> consumer = invocation.getArgument(0);
+            consumer.accept(product1);
+            return null;
+        }).when(productService).streamAllProducts(any());
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/products")
+                .header("Accept", "application/x-jackson-smile, application/json;q=0.5"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = new SmileMapper().readTree(body);
+        assertEquals("success", response.get("status").asText());
+        assertEquals(1, response.get("details").get(0).get("id").asLong());
+    }
+
+    @Test
+    public void testGetProducts_EmptyCatalog_NotFound() throws Exception {
+        when(productService.getProductsPage(null, 1)).thenReturn(List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("No products found."))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details.length()").value(0));
+
+        verify(productService, never()).streamAllProducts(any());
+    }
+
+    @Test
+    public void testGetProducts_Paginated_ReturnsNextCursor() throws Exception {
+        ProductSummary product1 = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+        ProductSummary product2 = new ProductSummary(2L, "Product 2", "Description", 150.0, "image2.jpg", 0L);
+
+        when(productService.getProductsPage(0L, 2)).thenReturn(List.of(product1, product2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products")
+                .param("after", "0")
+                .param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", startsWith("W/\"")))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("2"));
+    }
+
+    @Test
+    public void testGetProducts_FilteredAndSorted_ReturnsCursorToken() throws Exception {
+        ProductSummary product1 = new ProductSummary(7L, "Product 7", "Description", 10.0, "image7.jpg", 0L);
+        ProductSummary product2 = new ProductSummary(3L, "Product 3", "Description", 12.5, "image3.jpg", 0L);
+        ProductFilter filter = new ProductFilter(5.0, 20.0, 1L, ProductSort.PRICE);
+        ProductCursor after = new ProductCursor("9.5", 4L);
+
+        when(productService.getFilteredProductsPage(eq(filter), eq(after), eq(2)))
+                .thenReturn(List.of(product1, product2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products")
+                .param("minPrice", "5")
+                .param("maxPrice", "20")
+                .param("owner", "1")
+                .param("sort", "price")
+                .param("after", after.encode())
+                .param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].id").value(7))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor")
+                        .value(new ProductCursor("12.5", 3L).encode()));
+    }
+
+    @Test
+    public void testGetProducts_UnknownSort_BadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/products").param("sort", "rating"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Invalid query parameters."));
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    public void testGetProducts_CursorWithoutPrice_BadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/products")
+                .param("sort", "price")
+                .param("after", new ProductCursor("Product 4", 4L).encode()))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Invalid query parameters."));
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    public void testGetProducts_ServiceRejectsArguments_ServerError() throws Exception {
+        when(productService.getProductsPage(null, 2)).thenThrow(new IllegalArgumentException("bug"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products").param("limit", "2"))
+                .andExpect(MockMvcResultMatchers.status().isInternalServerError());
     }
 
     @Test
     public void testCreateProduct_Authenticated_Success() throws Exception {
         // Mock the product creation
-        // ProductModel product = new ProductModel(null, "Product 1", "Description", 100.0, "image1.jpg", null);
+        // ProductModel product = new ProductModel(null, "Product 1", "Description", 100.0, "image1.jpg", null, 0L);
 
         // Assuming user is authenticated, and returning product model with ID
-        ProductModel savedProduct = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null);
+        ProductModel savedProduct = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null, 0L);
 
-        when(jwtService.getUserIdFromToken(anyString())).thenReturn(1L);
+        UserModel owner = owner();
+        when(userService.getUserSnapshot(1L)).thenReturn(Optional.of(new UserSnapshot(1L, "a", "b", "user@example.com")));
+        when(userService.getUserReference(1L)).thenReturn(owner);
         when(productService.createProduct(any(ProductModel.class))).thenReturn(savedProduct);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/products")
@@ -72,28 +246,145 @@ public class ProductControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isCreated())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("success"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Product created successfully."));
+
+        // The owner is attached by reference, not loaded
+        verify(productService).createProduct(argThat(product -> product.getUser() == owner));
+    }
+
+    @Test
+    public void testCreateProduct_IdInBody_IsIgnored() throws Exception {
+        ProductModel savedProduct = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null, 0L);
+        when(userService.getUserSnapshot(1L)).thenReturn(Optional.of(new UserSnapshot(1L, "a", "b", "user@example.com")));
+        when(userService.getUserReference(1L)).thenReturn(owner());
+        when(productService.createProduct(any(ProductModel.class))).thenReturn(savedProduct);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/products")
+                .contentType("application/json")
+                .content("{\"id\":7, \"productName\":\"Product 1\", \"description\":\"Description\", \"price\":100.0, \"image\":\"image1.jpg\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+
+        // Creating never overwrites an existing product
+        verify(productService).createProduct(argThat(product -> product.getId() == null));
+    }
+
+    @Test
+    public void testCreateProduct_DeletedUser_NotFound() throws Exception {
+        when(userService.getUserSnapshot(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/products")
+                .contentType("application/json")
+                .content("{\"productName\":\"Product 1\", \"description\":\"Description\", \"price\":100.0, \"image\":\"image1.jpg\"}"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    public void testCreateProducts_Batch_ReturnsPerItemResults() throws Exception {
+        ProductModel savedProduct = new ProductModel(5L, "Product 1", "Description", 100.0, "image1.jpg", null, 0L);
+
+        when(userService.getUserSnapshot(1L)).thenReturn(Optional.of(new UserSnapshot(1L, "a", "b", "user@example.com")));
+        when(userService.getUserReference(1L)).thenReturn(owner());
+        when(productService.saveProducts(anyList())).thenReturn(List.of(savedProduct));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/products/batch")
+                .contentType("application/json")
+                .content("[{\"productName\":\"Product 1\", \"description\":\"Description\", \"price\":100.0, \"image\":\"image1.jpg\"},"
+                        + " {\"productName\":\"\", \"description\":\"Description\", \"price\":100.0, \"image\":\"image1.jpg\"}]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.succeeded").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.failed").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].status").value("created"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].id").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[1].status").value("error"));
+
+        verify(userService, times(1)).getUserSnapshot(1L);
+    }
+
+    @Test
+    public void testUpdateProducts_Batch_ReturnsPerItemResults() throws Exception {
+        when(productService.updateOwnedProducts(eq(1L), anyList()))
+                .thenReturn(List.of(OwnedWriteResult.APPLIED, OwnedWriteResult.NOT_OWNER));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/products/batch")
+                .contentType("application/json")
+                .content("[{\"id\":5, \"productName\":\"Product 5\", \"description\":\"Description\", \"price\":100.0, \"image\":\"image5.jpg\"},"
+                        + " {\"productName\":\"No id\", \"description\":\"Description\", \"price\":100.0, \"image\":\"image.jpg\"},"
+                        + " {\"id\":6, \"productName\":\"Product 6\", \"description\":\"Description\", \"price\":100.0, \"image\":\"image6.jpg\"}]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.succeeded").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].status").value("updated"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[1].message").value("Product not found."))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[2].id").value(6))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[2].message")
+                        .value("You are not authorized to update this product."));
+
+        verify(productService, never()).getProductsByIds(anyCollection());
     }
 
     @Test
     public void testGetProductById_Success() throws Exception {
-        // Mock the product retrieval by ID
-        ProductModel product = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null);
-        when(productService.getProductById(1L)).thenReturn(Optional.of(product));
+        // Mock the cached JSON of the product
+        ProductModel product = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null, 3L);
+        SerializedProduct cached = serialized(product);
+        when(productService.getSerializedProduct(1L)).thenReturn(Optional.of(cached));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/products/1"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"3\""))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"))
+                .andExpect(MockMvcResultMatchers.content().contentType("application/json"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("success"))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Product found."));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Product found."))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details.productName").value("Product 1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details.version").value(3));
     }
 
     @Test
-    public void testUpdateProduct_Authenticated_Success() throws Exception {
-        // Mock existing product
-        ProductModel existingProduct = new ProductModel(1L, "Old Product", "Old Description", 100.0, "oldimage.jpg", null);
-        ProductModel updatedProduct = new ProductModel(1L, "Updated Product", "Updated Description", 150.0, "updatedimage.jpg", null);
+    public void testGetProductById_AcceptCbor_ReturnsCborEnvelope() throws Exception {
+        ProductModel product = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null, 3L);
+        SerializedProduct cached = serialized(product);
+        when(productService.getSerializedProduct(1L)).thenReturn(Optional.of(cached));
 
-        when(productService.getProductById(1L)).thenReturn(Optional.of(existingProduct));
-        when(productService.createProduct(any(ProductModel.class))).thenReturn(updatedProduct);
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/products/1").header("Accept", "application/cbor"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/cbor"))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"3-cbor\""))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = new CBORMapper().readTree(body);
+        assertEquals("Product found.", response.get("message").asText());
+        assertEquals("Product 1", response.get("details").get("productName").asText());
+    }
+
+    @Test
+    public void testGetProductById_Missing_NotFound() throws Exception {
+        when(productService.getSerializedProduct(9L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/9"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("error"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details").doesNotExist());
+    }
+
+    @Test
+    public void testGetProductById_MatchingIfNoneMatch_NotModified() throws Exception {
+        ProductModel product = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null, 2L);
+        SerializedProduct cached = serialized(product);
+        when(productService.getSerializedProduct(1L)).thenReturn(Optional.of(cached));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/1").header("If-None-Match", "\"2\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"2\""))
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    public void testUpdateProduct_Authenticated_Success() throws Exception {
+        when(productService.updateOwnedProduct(eq(1L), eq(1L), isNull(), any(ProductModel.class)))
+                .thenReturn(OwnedProductUpdate.applied(new ProductSummary(1L, "Updated Product",
+                        "Updated Description", 150.0, "updatedimage.jpg", 4L)));
 
         mockMvc.perform(MockMvcRequestBuilders.put("/products/1")
                 .contentType("application/json")
@@ -101,14 +392,38 @@ public class ProductControllerTest {
                 .header("Authorization", "Bearer validtoken"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("success"))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Product updated successfully."));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Product updated successfully."))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details.productName").value("Updated Product"))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    public void testUpdateProduct_NotOwner_Forbidden() throws Exception {
+        when(productService.updateOwnedProduct(eq(1L), eq(1L), isNull(), any(ProductModel.class)))
+                .thenReturn(OwnedProductUpdate.failed(OwnedWriteResult.NOT_OWNER));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/products/1")
+                .contentType("application/json")
+                .content("{\"productName\":\"Updated Product\", \"description\":\"Updated Description\", \"price\":150.0, \"image\":\"updatedimage.jpg\"}"))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    public void testUpdateProduct_StaleIfMatch_PreconditionFailed() throws Exception {
+        when(productService.updateOwnedProduct(eq(1L), eq(1L), eq(3L), any(ProductModel.class)))
+                .thenReturn(OwnedProductUpdate.failed(OwnedWriteResult.VERSION_MISMATCH));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/products/1")
+                .header("If-Match", "\"3\"")
+                .contentType("application/json")
+                .content("{\"productName\":\"Updated Product\", \"description\":\"Updated Description\", \"price\":150.0, \"image\":\"updatedimage.jpg\"}"))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
     }
 
     @Test
     public void testDeleteProduct_Authenticated_Success() throws Exception {
         // Mock product deletion
-        ProductModel product = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null);
-        when(productService.getProductById(1L)).thenReturn(Optional.of(product));
+        when(productService.deleteOwnedProduct(1L, 1L, null)).thenReturn(OwnedWriteResult.APPLIED);
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/products/1")
                 .header("Authorization", "Bearer validtoken"))
@@ -117,11 +432,31 @@ public class ProductControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Product deleted successfully."));
     }
 
+    @Test
+    public void testDeleteProduct_Missing_NotFound() throws Exception {
+        when(productService.deleteOwnedProduct(2L, 1L, null)).thenReturn(OwnedWriteResult.NOT_FOUND);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/products/2"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void testGetOwnProducts_ReturnsNextCursor() throws Exception {
+        ProductSummary product = new ProductSummary(7L, "Product 7", "Description", 100.0, "image7.jpg", 0L);
+
+        when(productService.getProductsByOwner(1L, null, 1)).thenReturn(List.of(product));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/products").param("limit", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].id").value(7))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("7"));
+    }
+
     @Test
     public void testSearchProducts_Authenticated_Success() throws Exception {
         // Mock search result
-        ProductModel product = new ProductModel(1L, "Product 1", "Description", 100.0, "image1.jpg", null);
-        when(productService.searchProductsByName("Product")).thenReturn(List.of(product));
+        ProductSummary product = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+        when(productService.searchProductsByName("Product", null)).thenReturn(List.of(product));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/products/search")
                 .param("productName", "Product"))
@@ -129,5 +464,71 @@ public class ProductControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("success"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Products found."));
     }
-}
 
+    @Test
+    public void testSearchProducts_SingleCharacter_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/search")
+                .param("productName", "a"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        verify(productService, never()).searchProductsByName(anyString(), any());
+    }
+
+    @Test
+    public void testGetProductChanges_WithoutSince_ReturnsCurrentCursor() throws Exception {
+        when(productChangeFeed.currentCursor()).thenReturn(42L);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/products/changes"))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details").isEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("42"));
+        verify(productChangeFeed, never()).awaitChanges(anyLong(), anyInt(), any(Duration.class));
+    }
+
+    @Test
+    public void testGetProductChanges_ReturnsChangesAfterCursor() throws Exception {
+        ProductChangeModel change = ProductChangeModel.builder().id(43L).productId(7L)
+                .type(ProductChangeType.UPDATED).version(2L).changedAt(1000L)
+                .product("{\"id\":7,\"productName\":\"Product 7\",\"version\":2}").build();
+        when(productChangeFeed.awaitChanges(eq(42L), eq(100), any(Duration.class)))
+                .thenReturn(CompletableFuture.completedFuture(List.of(change)));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/products/changes").param("since", "42"))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].type").value("UPDATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].product.productName").value("Product 7"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("43"));
+    }
+
+    @Test
+    public void testGetProductChanges_CursorPrunedIsGone() throws Exception {
+        when(productChangeFeed.isPruned(42L)).thenReturn(true);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/products/changes").param("since", "42"))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isGone())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("error"));
+        verify(productChangeFeed, never()).awaitChanges(anyLong(), anyInt(), any(Duration.class));
+    }
+
+    @Test
+    public void testStreamProductChanges_CursorPrunedIsGone() throws Exception {
+        when(productChangeFeed.isPruned(42L)).thenReturn(true);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/products/changes")
+                        .param("since", "42")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andReturn();
+
+        assertEquals(410, result.getResponse().getStatus());
+        assertTrue(result.getResponse().getContentAsString().startsWith("event:error"));
+        verify(productChangeFeed, never()).subscribe(anyLong(), anyInt(), any(), any());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.product;
+
+import com.example.product.Model.ProductChangeModel;
+import com.example.product.Model.ProductChangeType;
+import com.example.product.Model.ProductModel;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Repository.ProductRepository;
+import com.example.product.Service.ProductChangeFeed;
+import com.example.product.Service.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        searchIndex = new ProductSearchIndex(null, null, false);
+        searchIndex.index(new ProductModel(1L, "Wireless Mouse", "Ergonomic mouse", 25.0, "mouse.jpg", null, 0L));
+        searchIndex.index(new ProductModel(2L, "Mouse", "Basic wired mouse", 10.0, "mouse2.jpg", null, 0L));
+        searchIndex.index(new ProductModel(3L, "Keyboard", "Works with any mouse pad", 40.0, "keyboard.jpg", null, 0L));
+    }
+
+    @Test
+    public void testSearch_RanksNameMatchesBeforeDescriptionMatches() {
+        assertEquals(List.of(2L, 1L, 3L), searchIndex.search("Mouse", 10));
+    }
+
+    @Test
+    public void testSearch_MatchesSubstringsAndAppliesLimit() {
+        assertEquals(List.of(1L), searchIndex.search("reless", 10));
+        assertEquals(List.of(2L), searchIndex.search("mouse", 1));
+        assertTrue(searchIndex.search("monitor", 10).isEmpty());
+    }
+
+    @Test
+    public void testIndexAndRemove_UpdateResultsIncrementally() {
+        searchIndex.index(new ProductModel(3L, "Monitor", "27 inch display", 200.0, "monitor.jpg", null, 0L));
+        assertEquals(List.of(3L), searchIndex.search("monitor", 10));
+        assertTrue(searchIndex.search("keyboard", 10).isEmpty());
+
+        searchIndex.remove(3L);
+        assertTrue(searchIndex.search("monitor", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearch_IgnoresTermsShorterThanTheMinimum() {
+        assertTrue(searchIndex.search("m", 10).isEmpty());
+        assertEquals(List.of(2L, 1L, 3L), searchIndex.search("mo", 10));
+    }
+
+    @Test
+    public void testRebuild_KeepsProductsDeletedWhileTheCatalogIsRead() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductSearchIndex rebuiltIndex = new ProductSearchIndex(productRepository, null, false);
+        ProductSummary monitor = new ProductSummary(4L, "Monitor", "27 inch display", 200.0, "monitor.jpg", 0L);
+        ProductSummary mouse = new ProductSummary(5L, "Mouse", "Basic wired mouse", 10.0, "mouse.jpg", 0L);
+        // The monitor is deleted and committed after the rebuild has already read its row
+        when(productRepository.streamAllSummaries()).thenReturn(Stream.of(monitor, mouse)
+                .peek(product -> {
+                    if (product == mouse) {
+                        rebuiltIndex.remove(4L);
+                    }
+                }));
+
+        rebuiltIndex.rebuild();
+
+        assertTrue(rebuiltIndex.isReady());
+        assertTrue(rebuiltIndex.search("monitor", 10).isEmpty());
+        assertEquals(List.of(5L), rebuiltIndex.search("mouse", 10));
+    }
+
+    @Test
+    public void testFollowChanges_AppliesProductsWrittenOnOtherNodes() throws Exception {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductChangeFeed productChangeFeed = mock(ProductChangeFeed.class);
+        ProductSearchIndex followingIndex = new ProductSearchIndex(productRepository, productChangeFeed, true);
+        ProductSummary monitor = new ProductSummary(4L, "Monitor", "27 inch display", 200.0, "monitor.jpg", 0L);
+        ProductSummary mouse = new ProductSummary(5L, "Mouse", "Basic wired mouse", 10.0, "mouse.jpg", 0L);
+        ProductChangeModel created = ProductChangeModel.builder().id(8L).productId(5L)
+                .type(ProductChangeType.CREATED).build();
+        ProductChangeModel deleted = ProductChangeModel.builder().id(9L).productId(4L)
+                .type(ProductChangeType.DELETED).build();
+        when(productChangeFeed.currentCursor()).thenReturn(7L);
+        when(productChangeFeed.productOf(created)).thenReturn(mouse);
+        when(productRepository.streamAllSummaries()).thenReturn(Stream.of(monitor));
+        ArgumentCaptor<ProductChangeFeed.Listener> listener = ArgumentCaptor.forClass(ProductChangeFeed.Listener.class);
+        when(productChangeFeed.subscribe(eq(7L), anyInt(), listener.capture(), any())).thenReturn(() -> {
+        });
+
+        followingIndex.rebuild();
+        listener.getValue().onChanges(List.of(created, deleted));
+
+        assertEquals(List.of(5L), followingIndex.search("mouse", 10));
+        assertTrue(followingIndex.search("monitor", 10).isEmpty());
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.product;
+
+import com.example.product.Filter.AdaptiveConcurrencyLimiter;
+import com.example.product.Filter.RateLimitFilter;
+import com.example.product.Filter.TokenBucketRateLimiter;
+import com.example.product.Service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RateLimitFilterTest {
+
+    // Slow enough that no token is refilled while a test runs
+    private static final double NO_REFILL = 0.001;
+
+    private JwtService jwtService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = mock(JwtService.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private RateLimitFilter filter(int ipCapacity, int userCapacity, int searchCapacity,
+            AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        return new RateLimitFilter(
+                new TokenBucketRateLimiter("ip", ipCapacity, NO_REFILL, 100),
+                new TokenBucketRateLimiter("user", userCapacity, NO_REFILL, 100),
+                List.of(new RateLimitFilter.RouteLimit("GET", "/products/search",
+                        new TokenBucketRateLimiter("search", searchCapacity, NO_REFILL, 100))),
+                concurrencyLimiter, jwtService, meterRegistry, Set.of("/products/changes"));
+    }
+
+    private AdaptiveConcurrencyLimiter unlimited() {
+        return new AdaptiveConcurrencyLimiter(100, 100, 100, Long.MAX_VALUE, 0.5, () -> 0);
+    }
+
+    private MockHttpServletResponse perform(RateLimitFilter filter, String method, String uri, String ip,
+            String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(ip);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    public void testIpBucketExhausted_Returns429WithRetryAfter() throws Exception {
+        RateLimitFilter filter = filter(2, 100, 100, unlimited());
+
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.1", null).getStatus());
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.1", null).getStatus());
+
+        MockHttpServletResponse rejected = perform(filter, "GET", "/products", "10.0.0.1", null);
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Too many requests"));
+
+        // Other clients keep their own bucket
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.2", null).getStatus());
+        assertEquals(1.0, meterRegistry.get("rate.limit.rejected").tag("limit", "ip").counter().count());
+    }
+
+    @Test
+    public void testUserBucket_SharedAcrossIps() throws Exception {
+        when(jwtService.getUserIdFromToken("token-1")).thenReturn(1L);
+        when(jwtService.getUserIdFromToken("token-2")).thenReturn(2L);
+        RateLimitFilter filter = filter(100, 1, 100, unlimited());
+
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.1", "token-1").getStatus());
+        assertEquals(429, perform(filter, "GET", "/products", "10.0.0.2", "token-1").getStatus());
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.1", "token-2").getStatus());
+    }
+
+    @Test
+    public void testRouteLimit_OnlyAppliesToItsRoute() throws Exception {
+        RateLimitFilter filter = filter(100, 100, 1, unlimited());
+
+        assertEquals(200, perform(filter, "GET", "/products/search", "10.0.0.1", null).getStatus());
+        assertEquals(429, perform(filter, "GET", "/products/search", "10.0.0.1", null).getStatus());
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.1", null).getStatus());
+    }
+
+    @Test
+    public void testConcurrencyLimitReached_Returns429() throws Exception {
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(1, 1, 10, Long.MAX_VALUE,
+                0.5, () -> 0);
+        RateLimitFilter filter = filter(100, 100, 100, concurrencyLimiter);
+
+        // Hold the only permit while another request arrives
+        assertTrue(concurrencyLimiter.tryAcquire());
+        assertEquals(429, perform(filter, "GET", "/products", "10.0.0.1", null).getStatus());
+        concurrencyLimiter.release(0);
+
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.1", null).getStatus());
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    public void testAsyncRequest_HoldsItsSlotUntilCompleteWithoutASample() throws Exception {
+        // Any sample would be over the threshold and halve the limit
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(4, 1, 10, -1, 0.5, () -> 0);
+        RateLimitFilter filter = filter(100, 100, 100, concurrencyLimiter);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertEquals(1, concurrencyLimiter.getInFlight());
+
+        request.getAsyncContext().complete();
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(4, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    public void testChangeFeedWait_ReleasesItsSlotWhenTheHandlerReturns() throws Exception {
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(4, 1, 10, -1, 0.5, () -> 0);
+        RateLimitFilter filter = filter(100, 100, 100, concurrencyLimiter);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/changes");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(4, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    public void testStreamedResponse_IsNotSampled() throws Exception {
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(4, 1, 10, -1, 0.5, () -> 0);
+        RateLimitFilter filter = filter(100, 100, 100, concurrencyLimiter);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/products"), new MockHttpServletResponse(),
+                (req, res) -> req.setAttribute(RateLimitFilter.UNSAMPLED_LATENCY, Boolean.TRUE));
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(4, concurrencyLimiter.getLimit());
+
+        // An ordinary request over the threshold is still sampled
+        perform(filter, "GET", "/products", "10.0.0.1", null);
+        assertEquals(2, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    public void testConcurrencyLimit_ShrinksWhenConnectionsAreAwaited() {
+        int[] waiters = {0};
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(10, 2, 20,
+                Long.MAX_VALUE, 0.5, () -> waiters[0]);
+
+        waiters[0] = 3;
+        assertTrue(concurrencyLimiter.tryAcquire());
+        concurrencyLimiter.release(0);
+        assertEquals(5, concurrencyLimiter.getLimit());
+
+        waiters[0] = 0;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(concurrencyLimiter.tryAcquire());
+            assertTrue(concurrencyLimiter.tryAcquire());
+            assertTrue(concurrencyLimiter.tryAcquire());
+            concurrencyLimiter.release(0);
+            concurrencyLimiter.release(0);
+            concurrencyLimiter.release(0);
+        }
+        assertTrue(concurrencyLimiter.getLimit() > 5);
+    }
+
+    @Test
+    public void testActuatorRequests_AreNotLimited() throws Exception {
+        RateLimitFilter filter = filter(1, 100, 100, unlimited());
+
+        assertEquals(200, perform(filter, "GET", "/products", "10.0.0.1", null).getStatus());
+        assertEquals(200, perform(filter, "GET", "/actuator/health", "10.0.0.1", null).getStatus());
+    }
+}
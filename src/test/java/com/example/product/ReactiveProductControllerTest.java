@@ -0,0 +1,134 @@
+package com.example.product;
+
+import com.example.product.Controller.ReactiveProductController;
+import com.example.product.Model.ProductSummary;
+import com.example.product.Service.ReactiveProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.*;
+
+public class ReactiveProductControllerTest {
+
+    private WebTestClient webTestClient;
+
+    @Mock
+    private ReactiveProductService reactiveProductService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ReactiveProductController reactiveProductController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        webTestClient = WebTestClient.bindToController(reactiveProductController).build();
+    }
+
+    @Test
+    public void testGetProducts_Paginated_ReturnsNextCursor() {
+        ProductSummary product1 = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+        ProductSummary product2 = new ProductSummary(2L, "Product 2", "Description", 150.0, "image2.jpg", 0L);
+
+        when(reactiveProductService.getProductsPage(null, 2)).thenReturn(Flux.just(product1, product2));
+
+        webTestClient.get().uri("/products?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("success")
+                .jsonPath("$.details.length()").isEqualTo(2)
+                .jsonPath("$.nextCursor").isEqualTo("2");
+    }
+
+    @Test
+    public void testGetProducts_All_StreamsTheEnvelope() {
+        ProductSummary product1 = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+        ProductSummary product2 = new ProductSummary(2L, "Product 2", "Description", 150.0, "image2.jpg", 0L);
+
+        when(reactiveProductService.getProductsPage(null, 1)).thenReturn(Flux.just(product1));
+        when(reactiveProductService.getAllProducts()).thenReturn(Flux.just(product1, product2));
+
+        webTestClient.get().uri("/products")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("success")
+                .jsonPath("$.message").isEqualTo("All products are available.")
+                .jsonPath("$.details.length()").isEqualTo(2)
+                .jsonPath("$.details[1].id").isEqualTo(2);
+    }
+
+    @Test
+    public void testGetProducts_All_EmptyCatalog() {
+        when(reactiveProductService.getProductsPage(null, 1)).thenReturn(Flux.empty());
+
+        webTestClient.get().uri("/products")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("No products found.");
+        verify(reactiveProductService, never()).getAllProducts();
+    }
+
+    @Test
+    public void testStreamProducts_Ndjson() {
+        ProductSummary product1 = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+        ProductSummary product2 = new ProductSummary(2L, "Product 2", "Description", 150.0, "image2.jpg", 0L);
+
+        when(reactiveProductService.getAllProducts()).thenReturn(Flux.just(product1, product2));
+
+        webTestClient.get().uri("/products")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ProductSummary.class)
+                .contains(product1, product2)
+                .hasSize(2);
+    }
+
+    @Test
+    public void testGetProductById_NotFound() {
+        when(reactiveProductService.getProductById(99L)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/products/99")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Product not found.");
+    }
+
+    @Test
+    public void testSearchProducts_Success() {
+        ProductSummary product = new ProductSummary(1L, "Product 1", "Description", 100.0, "image1.jpg", 0L);
+
+        when(reactiveProductService.searchProductsByName("Product", null)).thenReturn(Flux.just(product));
+
+        webTestClient.get().uri("/products/search?productName=Product")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Products found.");
+    }
+
+    @Test
+    public void testSearchProducts_QueryTooShort() {
+        webTestClient.get().uri("/products/search?productName=a")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verifyNoInteractions(reactiveProductService);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.product;
+
+import com.example.product.Model.AuthenticatedUser;
+import com.example.product.config.ReadReplicaRoutingDataSource;
+import com.example.product.config.readReplicaConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Routes between two embedded H2 databases, each of which answers "which database am I"
+public class ReadReplicaRoutingDataSourceTest {
+
+    private DataSource primaryDatabase;
+    private DataSource replicaDatabase;
+    private ReadReplicaRoutingDataSource routingDataSource;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        primaryDatabase = database("primary");
+        replicaDatabase = database("replica");
+        new JdbcTemplate(replicaDatabase).execute("create table replica_lag (seconds int)");
+        new JdbcTemplate(replicaDatabase).execute("insert into replica_lag values (0)");
+
+        routingDataSource = new ReadReplicaRoutingDataSource(primaryDatabase, List.of(replicaDatabase),
+                ReadReplicaRoutingDataSource.Selection.ROUND_ROBIN, Duration.ofSeconds(5),
+                "select seconds from replica_lag", Duration.ofSeconds(2), Duration.ofSeconds(10),
+                new SimpleMeterRegistry());
+        routingDataSource.checkReplicas();
+
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManager.addListener(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static DataSource database(String name) {
+        DataSource database = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(database).execute("create table source (name varchar(20))");
+        new JdbcTemplate(database).update("insert into source values (?)", name);
+        return database;
+    }
+
+    private String source() {
+        return jdbcTemplate.queryForObject("select name from source", String.class);
+    }
+
+    private static String source(DataSource database) {
+        return new JdbcTemplate(database).queryForObject("select name from source", String.class);
+    }
+
+    // JPA over the routing DataSource, with the Hibernate settings the application uses
+    private EntityManagerFactory entityManagerFactory() {
+        Map<String, Object> properties = new HashMap<>();
+        new readReplicaConfig().readReplicaConnectionHandling().customize(properties);
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setPackagesToScan("com.example.product.Model");
+        factory.setJpaPropertyMap(properties);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    private void authenticate(long userId) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser("user" + userId + "@example.com", userId), null, List.of()));
+    }
+
+    @Test
+    public void testReadOnlyTransactions_GoToTheReplica() {
+        assertEquals("replica", readOnly.execute(status -> source()));
+        assertEquals("primary", readWrite.execute(status -> source()));
+        assertEquals("primary", source());
+
+        // Spring Data's own read-only transactions stay on the primary
+        readOnly.setName("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+        assertEquals("primary", readOnly.execute(status -> source()));
+    }
+
+    @Test
+    public void testRecentWriter_ReadsFromThePrimary() {
+        authenticate(1L);
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update source set name = name"));
+        assertEquals("primary", readOnly.execute(status -> source()));
+
+        authenticate(2L);
+        assertEquals("replica", readOnly.execute(status -> source()));
+    }
+
+    @Test
+    public void testLaggingReplica_IsTakenOutOfRotation() {
+        new JdbcTemplate(replicaDatabase).update("update replica_lag set seconds = 30");
+        routingDataSource.checkReplicas();
+        assertEquals(0, routingDataSource.availableReplicas());
+        assertEquals("primary", readOnly.execute(status -> source()));
+
+        new JdbcTemplate(replicaDatabase).update("update replica_lag set seconds = 1");
+        routingDataSource.checkReplicas();
+        assertEquals("replica", readOnly.execute(status -> source()));
+    }
+
+    @Test
+    public void testWriteAfterReadOnlyCall_InOneEntityManager_GoesToThePrimary() {
+        EntityManagerFactory entityManagerFactory = entityManagerFactory();
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactionManager.addListener(routingDataSource);
+        TransactionTemplate jpaReadOnly = new TransactionTemplate(transactionManager);
+        jpaReadOnly.setReadOnly(true);
+        TransactionTemplate jpaReadWrite = new TransactionTemplate(transactionManager);
+
+        // The EntityManager spans both transactions, as with open-in-view
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            assertEquals("replica", jpaReadOnly.execute(status -> entityManager
+                    .createNativeQuery("select name from source").getSingleResult()));
+            jpaReadWrite.executeWithoutResult(status -> entityManager
+                    .createNativeQuery("update source set name = 'written'").executeUpdate());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+            entityManagerFactory.close();
+        }
+
+        assertEquals("written", source(primaryDatabase));
+        assertEquals("replica", source(replicaDatabase));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.product;
+
+import com.example.product.Model.TokenRevocationModel;
+import com.example.product.Repository.TokenRevocationRepository;
+import com.example.product.Service.JwtService;
+import com.example.product.Service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TokenRevocationServiceTest {
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    private TokenRevocationService tokenRevocationService;
+
+    private final JwtService jwtService = new JwtService(new SimpleMeterRegistry());
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        tokenRevocationService = new TokenRevocationService(tokenRevocationRepository, new SimpleMeterRegistry(),
+                1000, 0.01, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(jwtService, "tokenRevocationService", tokenRevocationService);
+    }
+
+    @Test
+    public void testRevokeToken_RejectsOnlyThatToken() {
+        String revoked = jwtService.generateToken("user@example.com", 42L);
+        String other = jwtService.generateToken("user@example.com", 42L);
+        Claims claims = jwtService.getVerifiedClaims(revoked);
+
+        tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+
+        // Rejected even though its claims were already cached
+        assertNull(jwtService.getVerifiedClaims(revoked));
+        assertNotNull(jwtService.getVerifiedClaims(other));
+        verify(tokenRevocationRepository).save(any(TokenRevocationModel.class));
+    }
+
+    @Test
+    public void testRevokeUserTokens_RejectsTokensIssuedBefore() {
+        String token = jwtService.generateToken("user@example.com", 42L);
+        String otherUser = jwtService.generateToken("other@example.com", 7L);
+
+        tokenRevocationService.revokeUserTokens(42L);
+
+        assertNull(jwtService.getVerifiedClaims(token));
+        assertNotNull(jwtService.getVerifiedClaims(otherUser));
+    }
+
+    @Test
+    public void testLoadAndRefresh_ApplyRevocationsFromOtherNodes() {
+        long now = System.currentTimeMillis();
+        when(tokenRevocationRepository.findByExpiresAtGreaterThan(anyLong())).thenReturn(List.of(
+                TokenRevocationModel.builder().userId(42L).createdAt(now).expiresAt(now + 60_000).build()));
+        tokenRevocationService.load();
+
+        String token = jwtService.generateToken("other@example.com", 7L);
+        Claims claims = jwtService.getVerifiedClaims(token);
+        when(tokenRevocationRepository.findByCreatedAtGreaterThanEqual(anyLong())).thenReturn(List.of(
+                TokenRevocationModel.builder().tokenId(claims.getId()).createdAt(now).expiresAt(now + 60_000).build()));
+        tokenRevocationService.refresh();
+
+        assertNull(jwtService.getVerifiedClaims(token));
+        assertNull(jwtService.getVerifiedClaims(jwtService.generateToken("user@example.com", 42L)));
+    }
+
+    @Test
+    public void testPruneExpired_KeepsUnexpiredRevocations() {
+        String token = jwtService.generateToken("user@example.com", 42L);
+        Claims claims = jwtService.getVerifiedClaims(token);
+        tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+
+        tokenRevocationService.pruneExpired();
+
+        assertNull(jwtService.getVerifiedClaims(token));
+        verify(tokenRevocationRepository).deleteExpired(anyLong());
+    }
+}
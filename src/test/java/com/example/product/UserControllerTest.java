@@ -0,0 +1,216 @@
+package com.example.product;
+
+import com.example.product.Controller.UserController;
+import com.example.product.Model.AuthenticatedUser;
+import com.example.product.Model.UserCursor;
+import com.example.product.Model.UserModel;
+import com.example.product.Model.UserSnapshot;
+import com.example.product.Service.JwtService;
+import com.example.product.Service.TokenRevocationService;
+import com.example.product.Service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+public class UserControllerTest {
+
+    private static final String LOGIN_BODY = "{\"email\":\"user@example.com\", \"password\":\"password123\"}";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @InjectMocks
+    private UserController userController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+    }
+
+    private UserModel user() {
+        UserModel user = new UserModel();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        user.setPassword("$2a$10$hash");
+        return user;
+    }
+
+    @Test
+    public void testLogin_ValidCredentials_ReturnsToken() throws Exception {
+        UserModel user = user();
+        when(userService.getUserByEmail("user@example.com")).thenReturn(user);
+        when(userService.authenticate(user, "password123")).thenReturn(CompletableFuture.completedFuture(true));
+        when(jwtService.generateToken("user@example.com", 1L)).thenReturn("token");
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/login")
+                .contentType("application/json")
+                .content(LOGIN_BODY))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.token").value("token"));
+
+        // The user is looked up exactly once per login
+        verify(userService, times(1)).getUserByEmail("user@example.com");
+    }
+
+    @Test
+    public void testLogin_InvalidPassword_ReturnsUnauthorized() throws Exception {
+        UserModel user = user();
+        when(userService.getUserByEmail("user@example.com")).thenReturn(user);
+        when(userService.authenticate(user, "password123")).thenReturn(CompletableFuture.completedFuture(false));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/login")
+                .contentType("application/json")
+                .content(LOGIN_BODY))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Invalid credentials"));
+    }
+
+    @Test
+    public void testLogin_HashingPoolFull_ReturnsServiceUnavailable() throws Exception {
+        UserModel user = user();
+        when(userService.getUserByEmail("user@example.com")).thenReturn(user);
+        when(userService.authenticate(user, "password123")).thenThrow(new TaskRejectedException("queue full"));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/login")
+                .contentType("application/json")
+                .content(LOGIN_BODY))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+    }
+
+    @Test
+    public void testDeleteUser_SoftDeletesByTokenId() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser("user@example.com", 1L), "validtoken", null));
+        when(userService.deleteUser(1L)).thenReturn(true);
+
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/user"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("User deleted successfully"));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // No lookup by email before the delete
+        verify(userService, never()).getUserByEmail(anyString());
+    }
+
+    @Test
+    public void testGetUser_ReturnsCachedSnapshotWithoutPassword() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser("user@example.com", 1L), "validtoken", null));
+        when(userService.getUserSnapshot(1L))
+                .thenReturn(Optional.of(new UserSnapshot(1L, "Jane", "Doe", "user@example.com")));
+
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.get("/user"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.details.email").value("user@example.com"))
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.details.password").doesNotExist());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        verify(userService, never()).getUserByEmail(anyString());
+    }
+
+    @Test
+    public void testLogout_RevokesTheRequestToken() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser("user@example.com", 1L), "validtoken", null));
+        Date expiration = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+        Claims claims = Jwts.claims().setId("token-1").setExpiration(expiration);
+        when(jwtService.getVerifiedClaims("validtoken")).thenReturn(claims);
+
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.post("/logout"))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Logged out successfully"));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        verify(tokenRevocationService).revokeToken("token-1", expiration);
+        verify(tokenRevocationService, never()).revokeUserTokens(anyLong());
+    }
+
+    @Test
+    public void testGetUsers_FullPrefixPageReturnsCursorWithoutPasswords() throws Exception {
+        UserSnapshot user = new UserSnapshot(1L, "Jane", "Doe", "jane@example.com");
+        when(userService.getUsersPage(null, "jane", null, 1)).thenReturn(List.of(user));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users?email=jane&limit=1")
+                .header("Authorization", "Bearer validtoken"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].email").value("jane@example.com"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.details[0].password").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor")
+                        .value(new UserCursor("jane@example.com", 1L).encode()));
+    }
+
+    @Test
+    public void testGetUsers_InvalidCursor_ReturnsBadRequest() throws Exception {
+        when(userService.getUsersPage(null, null, "abc", null)).thenThrow(new NumberFormatException("abc"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users?after=abc")
+                .header("Authorization", "Bearer validtoken"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testRegister_DuplicateEmail_ReturnsConflict() throws Exception {
+        when(userService.registerUser(any(UserModel.class)))
+                .thenReturn(CompletableFuture.failedFuture(new DuplicateKeyException("Email is already in use.")));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/user")
+                .contentType("application/json")
+                .content("{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"email\":\"user@example.com\","
+                        + "\"password\":\"password123\"}"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Email is already in use"));
+    }
+}
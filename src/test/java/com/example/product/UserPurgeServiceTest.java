@@ -0,0 +1,109 @@
+package com.example.product;
+
+import com.example.product.Model.UserPurgeModel;
+import com.example.product.Repository.ProductRepository;
+import com.example.product.Repository.UserPurgeRepository;
+import com.example.product.Repository.UserRepository;
+import com.example.product.Service.ProductService;
+import com.example.product.Service.UserPurgeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class UserPurgeServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserPurgeRepository userPurgeRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserPurgeService userPurgeService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        userPurgeService = new UserPurgeService(productRepository, productService, userRepository,
+                userPurgeRepository, meterRegistry, 2, Duration.ofMinutes(5));
+        when(userPurgeRepository.claim(anyLong(), anyString(), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(userPurgeRepository.addDeletedProducts(anyLong(), anyString(), anyLong())).thenReturn(1);
+    }
+
+    @Test
+    public void testPurge_DeletesChunksThenUser() {
+        when(productRepository.findIdsByOwner(7L, Limit.of(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L), List.of());
+        // Product 2 was deleted by its owner in the meantime, so only one row is counted
+        when(productService.deleteProducts(List.of(1L, 2L))).thenReturn(1);
+        when(productService.deleteProducts(List.of(3L))).thenReturn(1);
+
+        userPurgeService.purge(7L);
+
+        InOrder inOrder = inOrder(productService, userPurgeRepository, userRepository);
+        inOrder.verify(userPurgeRepository).claim(eq(7L), anyString(), any(Instant.class), any(Instant.class));
+        inOrder.verify(productService).deleteProducts(List.of(1L, 2L));
+        inOrder.verify(userPurgeRepository).addDeletedProducts(eq(7L), anyString(), eq(1L));
+        inOrder.verify(productService).deleteProducts(List.of(3L));
+        inOrder.verify(userPurgeRepository).addDeletedProducts(eq(7L), anyString(), eq(1L));
+        inOrder.verify(userRepository).deleteSoftDeleted(7L);
+        inOrder.verify(userPurgeRepository).markCompleted(eq(7L), anyString(), any(Instant.class));
+        assertEquals(2.0, meterRegistry.counter("user.purge.products").count());
+    }
+
+    @Test
+    public void testPurgePendingUsers_FailureIsRetriedLater() {
+        UserPurgeModel first = UserPurgeModel.builder().userId(1L).requestedAt(Instant.now()).build();
+        UserPurgeModel second = UserPurgeModel.builder().userId(2L).requestedAt(Instant.now()).build();
+        when(userPurgeRepository.findByCompletedAtIsNullOrderByRequestedAtAsc()).thenReturn(List.of(first, second));
+        when(productRepository.findIdsByOwner(1L, Limit.of(2))).thenThrow(new IllegalStateException("lock timeout"));
+        when(productRepository.findIdsByOwner(2L, Limit.of(2))).thenReturn(List.of());
+
+        userPurgeService.purgePendingUsers();
+
+        // The failed purge stays pending; the next one still runs
+        verify(userPurgeRepository, never()).markCompleted(eq(1L), anyString(), any(Instant.class));
+        verify(userPurgeRepository).markCompleted(eq(2L), anyString(), any(Instant.class));
+    }
+
+    @Test
+    public void testPurge_ClaimedByAnotherInstance_LeavesTheUserToIt() {
+        when(userPurgeRepository.claim(eq(7L), anyString(), any(Instant.class), any(Instant.class))).thenReturn(0);
+
+        userPurgeService.purge(7L);
+
+        verifyNoInteractions(productRepository, productService, userRepository);
+        verify(userPurgeRepository, never()).markCompleted(anyLong(), anyString(), any(Instant.class));
+    }
+
+    @Test
+    public void testPurge_ClaimTakenOverMidway_StopsWithoutCountingTheChunk() {
+        when(productRepository.findIdsByOwner(7L, Limit.of(2))).thenReturn(List.of(1L, 2L));
+        when(userPurgeRepository.addDeletedProducts(eq(7L), anyString(), anyLong())).thenReturn(0);
+
+        userPurgeService.purge(7L);
+
+        verify(productService, times(1)).deleteProducts(List.of(1L, 2L));
+        verify(userRepository, never()).deleteSoftDeleted(anyLong());
+        assertEquals(0.0, meterRegistry.counter("user.purge.products").count());
+    }
+}
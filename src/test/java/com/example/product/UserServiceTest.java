@@ -0,0 +1,150 @@
+package com.example.product;
+
+import com.example.product.Model.UserCursor;
+import com.example.product.Model.UserModel;
+import com.example.product.Model.UserSnapshot;
+import com.example.product.Repository.UserRepository;
+import com.example.product.Service.RegisteredEmailFilter;
+import com.example.product.Service.UserService;
+import com.example.product.config.cacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(cacheConfig.USERS_CACHE,
+            cacheConfig.USER_IDS_CACHE);
+
+    @Mock
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Spy
+    private Executor passwordHashingExecutor = new SyncTaskExecutor();
+
+    @InjectMocks
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testGetUserSnapshot_CachedByIdAndEmail() {
+        UserSnapshot user = new UserSnapshot(1L, "Jane", "Doe", "jane@example.com");
+        when(userRepository.findById(1L, UserSnapshot.class)).thenReturn(Optional.of(user));
+
+        assertEquals(Optional.of(user), userService.getUserSnapshot(1L));
+        assertEquals(Optional.of(user), userService.getUserSnapshot(1L));
+        assertEquals(Optional.of(user), userService.getUserSnapshotByEmail("jane@example.com"));
+
+        verify(userRepository, times(1)).findById(1L, UserSnapshot.class);
+        verify(userRepository, never()).findByEmail("jane@example.com", UserSnapshot.class);
+    }
+
+    @Test
+    public void testSaveUser_EvictsSnapshotAndStaleEmail() {
+        UserSnapshot before = new UserSnapshot(1L, "Jane", "Doe", "jane@example.com");
+        UserSnapshot after = new UserSnapshot(1L, "Jane", "Doe", "jane.doe@example.com");
+        when(userRepository.findByEmail("jane@example.com", UserSnapshot.class))
+                .thenReturn(Optional.of(before), Optional.empty());
+        when(userRepository.findById(1L, UserSnapshot.class)).thenReturn(Optional.of(after));
+        userService.getUserSnapshotByEmail("jane@example.com");
+
+        UserModel user = new UserModel();
+        user.setId(1L);
+        user.setEmail("jane.doe@example.com");
+        userService.saveUser(user);
+
+        // The old email now maps to a snapshot with another email, so it is looked up again
+        assertTrue(userService.getUserSnapshotByEmail("jane@example.com").isEmpty());
+        assertEquals(Optional.of(after), userService.getUserSnapshot(1L));
+    }
+
+    @Test
+    public void testGetUsersPage_PrefixContinuesFromCursorWithEscapedPattern() {
+        UserSnapshot user = new UserSnapshot(7L, "Jane", "Doe_2", "jane@example.com");
+        when(userRepository.findSnapshotsByLastNamePrefix("Doe!_%", "Doe_1", 3L, Limit.of(2)))
+                .thenReturn(List.of(user));
+
+        assertEquals(List.of(user),
+                userService.getUsersPage("Doe_", null, new UserCursor("Doe_1", 3L).encode(), 2));
+        verify(userRepository, never()).findSnapshots(anyLong(), any());
+    }
+
+    @Test
+    public void testGetUsersPage_RejectsBothPrefixes() {
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersPage("Doe", "jane", null, null));
+        verifyNoInteractions(userRepository);
+    }
+
+    private UserModel newUser(String email) {
+        return UserModel.builder().firstName("Jane").lastName("Doe").email(email).password("password1").build();
+    }
+
+    @Test
+    public void testRegisterUser_UnseenEmail_InsertsWithoutLookup() {
+        UserModel user = newUser("jane@example.com");
+        when(registeredEmailFilter.mightBeRegistered("jane@example.com")).thenReturn(false);
+        when(passwordEncoder.encode("password1")).thenReturn("{bcrypt}hash");
+        when(userRepository.saveAndFlush(user)).thenReturn(user);
+
+        assertEquals(user, userService.registerUser(user).join());
+        assertEquals("{bcrypt}hash", user.getPassword());
+        verify(userRepository, never()).findIdByEmailIncludingDeleted(any());
+        verify(registeredEmailFilter).add("jane@example.com");
+    }
+
+    @Test
+    public void testRegisterUser_KnownEmail_FailsBeforeHashing() {
+        when(registeredEmailFilter.mightBeRegistered("jane@example.com")).thenReturn(true);
+        when(userRepository.findIdByEmailIncludingDeleted("jane@example.com")).thenReturn(Optional.of(1L));
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> userService.registerUser(newUser("jane@example.com")).join());
+        assertTrue(error.getCause() instanceof DuplicateKeyException);
+        verifyNoInteractions(passwordEncoder);
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testRegisterUser_UniqueViolation_IsDuplicateKey() {
+        UserModel user = newUser("jane@example.com");
+        when(registeredEmailFilter.mightBeRegistered("jane@example.com")).thenReturn(false);
+        when(passwordEncoder.encode("password1")).thenReturn("{bcrypt}hash");
+        when(userRepository.saveAndFlush(user)).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> userService.registerUser(user).join());
+        assertTrue(error.getCause() instanceof DuplicateKeyException);
+        verify(registeredEmailFilter, never()).add(any());
+    }
+}